@@ -0,0 +1,76 @@
+package corteva.weather.core;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * The per-station duplicate check: does the station already have a date.
+ * EpochDaySet against a HashSet of dates and the List.contains scan.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@org.openjdk.jmh.annotations.Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class EpochDaySetBenchmark {
+    private static final int PROBES = 1024;
+
+    @Param({"365", "10950"})
+    int days; // dates already stored for the station
+
+    private EpochDaySet epochDaySet;
+    private Set<LocalDate> hashSet;
+    private List<LocalDate> list;
+    private long[] probeDays;
+    private LocalDate[] probeDates;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        long first = LocalDate.of(1985, 1, 1).toEpochDay();
+        epochDaySet = new EpochDaySet();
+        hashSet = new HashSet<>();
+        list = new ArrayList<>();
+        for (int i = 0; i < days; i++) {
+            epochDaySet.add(first + i);
+            hashSet.add(LocalDate.ofEpochDay(first + i));
+            list.add(LocalDate.ofEpochDay(first + i));
+        }
+        // about half the probes are already present
+        probeDays = new long[PROBES];
+        probeDates = new LocalDate[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            probeDays[i] = first + random.nextInt(days * 2);
+            probeDates[i] = LocalDate.ofEpochDay(probeDays[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROBES)
+    public void epochDaySet(Blackhole blackhole) {
+        for (long day : probeDays) {
+            blackhole.consume(epochDaySet.contains(day));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROBES)
+    public void hashSet(Blackhole blackhole) {
+        for (LocalDate date : probeDates) {
+            blackhole.consume(hashSet.contains(date));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROBES)
+    public void listBaseline(Blackhole blackhole) {
+        for (LocalDate date : probeDates) {
+            blackhole.consume(list.contains(date));
+        }
+    }
+}
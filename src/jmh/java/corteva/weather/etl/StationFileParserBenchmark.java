@@ -0,0 +1,84 @@
+package corteva.weather.etl;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.time.*;
+import java.time.format.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Parsing one station file: the byte level StationFileParser against
+ * the split & LocalDate.parse approach it replaced, as a baseline.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class StationFileParserBenchmark {
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    @Param({"10950", "36500"})
+    int lines; // 30 & 100 years of days
+
+    private Path file;
+    private final StationFileParser parser = new StationFileParser();
+
+    @Setup
+    public void setup() throws IOException {
+        file = Files.createTempFile("station", ".txt");
+        Random random = new Random(42);
+        LocalDate date = LocalDate.of(1900, 1, 1);
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            for (int i = 0; i < lines; i++) {
+                int max = random.nextInt(10) == 0 ? -9999 : random.nextInt(500) - 100;
+                int min = max == -9999 ? -9999 : max - random.nextInt(150);
+                int precip = random.nextInt(20) == 0 ? -9999 : random.nextInt(300);
+                out.write(String.format("%s\t%5d\t%5d\t%5d\n", FORMAT.format(date), max, min, precip));
+                date = date.plusDays(1);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long parser(Blackhole blackhole) throws IOException {
+        return parser.parse(file, 0, new StationFileParser.Handler() {
+            @Override
+            public void record(long epochDay, int maxTemp, int minTemp, int totalPrecip) {
+                blackhole.consume(epochDay + maxTemp + minTemp + totalPrecip);
+            }
+
+            @Override
+            public void reject(StationFileParser.Reject reason, long lineNumber) {
+                blackhole.consume(reason);
+            }
+        });
+    }
+
+    @Benchmark
+    public long splitBaseline(Blackhole blackhole) throws IOException {
+        long count = 0;
+        try (BufferedReader in = Files.newBufferedReader(file)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] fields = line.split("\t");
+                blackhole.consume(LocalDate.parse(fields[0].trim(), FORMAT));
+                blackhole.consume(Integer.parseInt(fields[1].trim()));
+                blackhole.consume(Integer.parseInt(fields[2].trim()));
+                blackhole.consume(Integer.parseInt(fields[3].trim()));
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,53 @@
+package corteva.weather.etl;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Yearly aggregation of a station's rows, as done during import
+ * to feed the summarizer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class YearlyTotalsBenchmark {
+    @Param({"30"})
+    int years;
+
+    private long[] epochDays;
+    private int[] maxTemps;
+    private int[] minTemps;
+    private int[] precips;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        long first = LocalDate.of(1985, 1, 1).toEpochDay();
+        int days = years * 365;
+        epochDays = new long[days];
+        maxTemps = new int[days];
+        minTemps = new int[days];
+        precips = new int[days];
+        for (int i = 0; i < days; i++) {
+            epochDays[i] = first + i;
+            maxTemps[i] = random.nextInt(10) == 0 ? -9999 : random.nextInt(500) - 100;
+            minTemps[i] = maxTemps[i] == -9999 ? -9999 : maxTemps[i] - random.nextInt(150);
+            precips[i] = random.nextInt(20) == 0 ? -9999 : random.nextInt(300);
+        }
+    }
+
+    @Benchmark
+    public YearlyTotals aggregate() {
+        YearlyTotals totals = new YearlyTotals();
+        for (int i = 0; i < epochDays.length; i++) {
+            totals.add(epochDays[i], maxTemps[i], minTemps[i], precips[i]);
+        }
+        return totals;
+    }
+}
@@ -0,0 +1,204 @@
+package corteva.weather.perf;
+
+import corteva.weather.*;
+import corteva.weather.core.*;
+import corteva.weather.etl.*;
+import io.micrometer.core.instrument.*;
+import lombok.extern.slf4j.*;
+import org.springframework.boot.builder.*;
+import org.springframework.context.*;
+import org.springframework.jdbc.core.*;
+import org.testcontainers.containers.*;
+import org.testcontainers.utility.*;
+
+import java.net.*;
+import java.net.http.*;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+/**
+ * End to end throughput & latency: generates a synthetic dataset (see
+ * WxDataGenerator), imports & summarizes it with BulkImport, then drives
+ * /api/weather and /api/weather/stats at a fixed concurrency, reporting
+ * rows/s for the import and req/s, p50 & p99 latencies for the api.
+ * The app runs in process on a random port, against a throwaway MySQL
+ * from Testcontainers (needs docker), or the db given by `--jdbc-url`,
+ * which must be empty. `--shards=N` starts N containers and spreads
+ * the stations over them (see Shards).
+ *
+ * <pre>
+ * mvn -Pjmh compile exec:java@perf \
+ *     -Dperf.args="--stations=200 --years=30 --concurrency=32 --duration-s=30"
+ * </pre>
+ */
+@Slf4j
+public class LoadHarness {
+    private static final String JDBC_PARAMS = "allowPublicKeyRetrieval=true&useSSL=false";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = Options.parse(args);
+        int stations = Integer.parseInt(options.getOrDefault("stations", "100"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "16"));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup-s", "5")));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration-s", "30")));
+
+        Path dir = options.containsKey("dir") ? Path.of(options.get("dir")) : Files.createTempDirectory("wx_data");
+        WxDataGenerator generator = WxDataGenerator.fromOptions(options);
+        List<Path> files = generator.generate(dir);
+        log.info(String.format("generated %,d files, about %,d rows, in %s", files.size(), generator.getRows(), dir));
+
+        List<MySQLContainer<?>> containers = new ArrayList<>();
+        List<String> urls = new ArrayList<>();
+        String url = options.get("jdbc-url");
+        String username = options.getOrDefault("jdbc-user", "dbuser");
+        String password = options.getOrDefault("jdbc-password", "dbpwd");
+        if (url == null) {
+            int shards = Integer.parseInt(options.getOrDefault("shards", "1"));
+            for (int i = 0; i < shards; i++) {
+                MySQLContainer<?> mysql = new MySQLContainer<>(DockerImageName.parse(options.getOrDefault("mysql-image", "mysql:8.0")));
+                containers.add(mysql);
+                mysql.start();
+                urls.add(mysql.getJdbcUrl() + (mysql.getJdbcUrl().contains("?") ? "&" : "?") + JDBC_PARAMS);
+                username = mysql.getUsername();
+                password = mysql.getPassword();
+            }
+            url = urls.get(0);
+        }
+
+        Map<String, Object> properties = new HashMap<>();
+        if (urls.size() > 1) properties.put("shards.urls", String.join(",", urls));
+        properties.put("spring.datasource.url", url);
+        properties.put("spring.datasource.username", username);
+        properties.put("spring.datasource.password", password);
+        properties.put("server.port", "0");
+        properties.put("bulk.import.enabled", "false"); // imported below, so it can be timed
+        properties.put("bulk.import.dir", dir.toString());
+        properties.put("api.logging.sample-rate", "0");
+        properties.put("spring.output.ansi.enabled", "never");
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(RestApplication.class).properties(properties).run()) {
+            importAndSummarize(context, files);
+
+            int port = Integer.parseInt(context.getEnvironment().getRequiredProperty("local.server.port"));
+            String base = "http://localhost:" + port;
+            drive("measurements", concurrency, warmup, duration, () -> URI.create(String.format(
+                    "%s/api/weather?station=%s&page=%d&size=100", base,
+                    WxDataGenerator.stationName(ThreadLocalRandom.current().nextInt(stations)), ThreadLocalRandom.current().nextInt(50))));
+            drive("measurements-cursor", concurrency, warmup, duration, () -> URI.create(String.format(
+                    "%s/api/weather?station=%s&size=100&cursor=", base,
+                    WxDataGenerator.stationName(ThreadLocalRandom.current().nextInt(stations)))));
+            drive("stats", concurrency, warmup, duration, () -> URI.create(String.format(
+                    "%s/api/weather/stats?station=%s&page=%d&size=10", base,
+                    WxDataGenerator.stationName(ThreadLocalRandom.current().nextInt(stations)), ThreadLocalRandom.current().nextInt(3))));
+        } finally {
+            containers.forEach(MySQLContainer::stop);
+        }
+    }
+
+    // import every file through the same pipeline as the watcher, timing the import & summarize
+    private static void importAndSummarize(ApplicationContext context, List<Path> files) {
+        BulkImport bulkImport = context.getBean(BulkImport.class);
+        MeterRegistry registry = context.getBean(MeterRegistry.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        Shards shards = context.getBean(Shards.class);
+
+        long start = System.nanoTime();
+        bulkImport.importChanged(files);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        double summarizeSeconds = registry.find("weather.summarize").timers().stream()
+                .mapToDouble(t -> t.totalTime(TimeUnit.SECONDS)).sum();
+        double importSeconds = seconds - summarizeSeconds;
+        long rows = shards.onEach(() -> jdbcTemplate.queryForObject("SELECT COUNT(*) FROM measurements", Long.class))
+                .stream().mapToLong(Long::longValue).sum();
+        log.info(String.format(
+                "import: %,d rows in %.1f s, %,.0f rows/s; summarize: %.1f s",
+                rows, importSeconds, rows / importSeconds, summarizeSeconds
+        ));
+    }
+
+    // run concurrent GETs for the warmup then the measured duration, and report
+    private static void drive(String name, int concurrency, Duration warmup, Duration duration, Supplier<URI> uris) throws Exception {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+        try {
+            run(pool, client, concurrency, warmup, uris);
+            long start = System.nanoTime();
+            List<Latencies> results = run(pool, client, concurrency, duration, uris);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            Latencies all = new Latencies();
+            results.forEach(all::addAll);
+            log.info(String.format(
+                    "%s: %,d requests, %,d errors, %,.0f req/s, p50 %.2f ms, p99 %.2f ms, max %.2f ms",
+                    name, all.size(), all.errors, all.size() / seconds,
+                    all.percentile(0.50) / 1e6, all.percentile(0.99) / 1e6, all.percentile(1.0) / 1e6
+            ));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static List<Latencies> run(ExecutorService pool, HttpClient client, int concurrency, Duration duration,
+                                       Supplier<URI> uris) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Future<Latencies>> futures = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            futures.add(pool.submit(() -> {
+                Latencies latencies = new Latencies();
+                while (System.nanoTime() < deadline) {
+                    HttpRequest request = HttpRequest.newBuilder(uris.get()).GET().build();
+                    long start = System.nanoTime();
+                    HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                    latencies.add(System.nanoTime() - start);
+                    if (response.statusCode() != 200) latencies.errors++;
+                }
+                return latencies;
+            }));
+        }
+        List<Latencies> results = new ArrayList<>();
+        for (Future<Latencies> future : futures) {
+            results.add(future.get());
+        }
+        return results;
+    }
+
+    /**
+     * One worker's response times in nanos, kept unboxed.
+     */
+    private static class Latencies {
+        private long[] values = new long[1024];
+        private int size;
+        private long errors;
+        private boolean sorted;
+
+        void add(long nanos) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = nanos;
+            sorted = false;
+        }
+
+        void addAll(Latencies other) {
+            for (int i = 0; i < other.size; i++) add(other.values[i]);
+            errors += other.errors;
+        }
+
+        int size() {
+            return size;
+        }
+
+        // nearest rank percentile, 0 when empty
+        long percentile(double p) {
+            if (size == 0) return 0;
+            if (!sorted) {
+                Arrays.sort(values, 0, size);
+                sorted = true;
+            }
+            int rank = (int) Math.ceil(p * size);
+            return values[Math.max(0, Math.min(size, rank) - 1)];
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package corteva.weather.perf;
+
+import lombok.extern.slf4j.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.time.*;
+import java.time.format.*;
+import java.util.*;
+
+/**
+ * Writes synthetic station files in the wx_data format: one file per
+ * station, one `yyyyMMdd \t maxTemp \t minTemp \t precip` line per day,
+ * values in tenths, -9999 for nulls.
+ * Temps follow the seasons with some noise, a `nullRate` share of the
+ * values are nulls and a `duplicateRate` share of the lines are written
+ * twice, so the import's dedup has something to do.
+ * The same seed always writes the same files.
+ *
+ * <pre>
+ * mvn -Pjmh compile exec:java@perf -Dperf.main=corteva.weather.perf.WxDataGenerator \
+ *     -Dperf.args="--dir=target/wx_data --stations=200 --years=30"
+ * </pre>
+ */
+@Slf4j
+public class WxDataGenerator {
+    public static final int NULL_VALUE = -9999;
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final int stations;
+    private final int years;
+    private final int firstYear;
+    private final double nullRate;
+    private final double duplicateRate;
+    private final long seed;
+
+    public WxDataGenerator(int stations, int years, int firstYear, double nullRate, double duplicateRate, long seed) {
+        this.stations = stations;
+        this.years = years;
+        this.firstYear = firstYear;
+        this.nullRate = nullRate;
+        this.duplicateRate = duplicateRate;
+        this.seed = seed;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = Options.parse(args);
+        WxDataGenerator generator = fromOptions(options);
+        Path dir = Path.of(options.getOrDefault("dir", "target/wx_data"));
+        List<Path> files = generator.generate(dir);
+        log.info(String.format("wrote %,d files to %s", files.size(), dir));
+    }
+
+    static WxDataGenerator fromOptions(Map<String, String> options) {
+        return new WxDataGenerator(
+                Integer.parseInt(options.getOrDefault("stations", "100")),
+                Integer.parseInt(options.getOrDefault("years", "30")),
+                Integer.parseInt(options.getOrDefault("first-year", "1985")),
+                Double.parseDouble(options.getOrDefault("null-rate", "0.05")),
+                Double.parseDouble(options.getOrDefault("duplicate-rate", "0.01")),
+                Long.parseLong(options.getOrDefault("seed", "42"))
+        );
+    }
+
+    /**
+     * @return the files written, one per station
+     */
+    public List<Path> generate(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        List<Path> files = new ArrayList<>();
+        for (int s = 0; s < stations; s++) {
+            Path file = dir.resolve(stationName(s) + ".txt");
+            writeStation(file, new Random(seed * 31 + s));
+            files.add(file);
+        }
+        return files;
+    }
+
+    public static String stationName(int index) {
+        return String.format("USC%08d", index);
+    }
+
+    public long getRows() {
+        LocalDate first = LocalDate.of(firstYear, 1, 1);
+        return stations * (first.plusYears(years).toEpochDay() - first.toEpochDay());
+    }
+
+    // one station's days, in date order
+    private void writeStation(Path file, Random random) throws IOException {
+        double climate = random.nextDouble() * 150; // warmer or cooler station, in tenths
+        LocalDate date = LocalDate.of(firstYear, 1, 1);
+        LocalDate end = date.plusYears(years);
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            for (; date.isBefore(end); date = date.plusDays(1)) {
+                double season = Math.sin(2 * Math.PI * (date.getDayOfYear() - 105) / 365.0);
+                int max = (int) Math.round(climate + 150 * season + 100 + random.nextGaussian() * 40);
+                int min = max - 50 - random.nextInt(100);
+                int precip = random.nextInt(3) == 0 ? random.nextInt(400) : 0;
+
+                String line = String.format("%s\t%5d\t%5d\t%5d\n", FORMAT.format(date),
+                        orNull(max, random), orNull(min, random), orNull(precip, random));
+                out.write(line);
+                if (random.nextDouble() < duplicateRate) {
+                    out.write(line);
+                }
+            }
+        }
+    }
+
+    private int orNull(int value, Random random) {
+        return random.nextDouble() < nullRate ? NULL_VALUE : value;
+    }
+}
@@ -0,0 +1,89 @@
+package corteva.weather.rest;
+
+import com.fasterxml.jackson.databind.*;
+import com.fasterxml.jackson.dataformat.cbor.*;
+import com.fasterxml.jackson.dataformat.smile.*;
+import corteva.weather.core.*;
+import corteva.weather.core.Measurement;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Serializing a full page of the controllers' responses,
+ * as json and as the binary formats.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@org.openjdk.jmh.annotations.Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseSerializationBenchmark {
+    @Param({"100"})
+    int pageSize; // the largest page the api serves
+
+    private ObjectMapper json;
+    private ObjectMapper cbor;
+    private ObjectMapper smile;
+    private Map<String, Object> measurements;
+    private Map<String, Object> stats;
+
+    @Setup
+    public void setup() {
+        json = mapper().build();
+        cbor = mapper().factory(new CBORFactory()).build();
+        smile = mapper().factory(new SmileFactory()).build();
+
+        Random random = new Random(42);
+        List<Measurement> measurementList = new ArrayList<>();
+        List<Stats> statsList = new ArrayList<>();
+        for (int i = 0; i < pageSize; i++) {
+            int max = random.nextInt(500) - 100;
+            measurementList.add(new Measurement("USC00336196", LocalDate.of(1999, 1, 1).plusDays(i), max - 80, max, random.nextInt(300)));
+            statsList.add(new Stats("USC00336196", LocalDate.of(1900 + i, 1, 1), random.nextFloat() * 10, random.nextFloat() * 30, random.nextFloat()));
+        }
+        measurements = response(measurementList);
+        stats = response(statsList);
+    }
+
+    @Benchmark
+    public byte[] measurementsJson() throws Exception {
+        return json.writeValueAsBytes(measurements);
+    }
+
+    @Benchmark
+    public byte[] measurementsCbor() throws Exception {
+        return cbor.writeValueAsBytes(measurements);
+    }
+
+    @Benchmark
+    public byte[] measurementsSmile() throws Exception {
+        return smile.writeValueAsBytes(measurements);
+    }
+
+    @Benchmark
+    public byte[] statsJson() throws Exception {
+        return json.writeValueAsBytes(stats);
+    }
+
+    // configured like Boot's ObjectMapper
+    private static Jackson2ObjectMapperBuilder mapper() {
+        return Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    // shaped like a controller's paged response
+    private static Map<String, Object> response(List<?> rows) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("stats", rows);
+        response.put("currentPage", 0);
+        response.put("totalItems", 10_000L);
+        response.put("totalPages", 10_000 / rows.size());
+        response.put("station", "USC00336196");
+        response.put("date", null);
+        return response;
+    }
+}
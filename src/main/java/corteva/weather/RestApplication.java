@@ -1,5 +1,6 @@
 package corteva.weather;
 
+import corteva.weather.core.*;
 import corteva.weather.etl.*;
 import io.swagger.v3.oas.annotations.*;
 import io.swagger.v3.oas.annotations.info.*;
@@ -11,7 +12,10 @@ import org.springframework.context.annotation.*;
 /**
  * Main entry point for the rest application.
  * This also can trigger the data ingestion via
- * the `bulk.import.enabled` property.
+ * the `bulk.import.enabled` property, and keep
+ * ingesting changes via `bulk.import.watch.enabled`.
+ * With `measurements.store.enabled` the measurements are then
+ * loaded into memory to serve reads.
  */
 @SpringBootApplication
 @OpenAPIDefinition(info = @Info(title = "Corteva Weather API", version = "1.0", description = "API for weather station data"))
@@ -22,11 +26,13 @@ public class RestApplication {
     }
 
     @Bean
-    CommandLineRunner runBulkImport(BulkImport bulkImport) {
+    CommandLineRunner runBulkImport(BulkImport bulkImport, MeasurementStore measurementStore, ImportWatcher importWatcher) {
         return args -> {
             try {
                 bulkImport.startImport();
+                measurementStore.refresh();
                 bulkImport.summarize();
+                importWatcher.start();
             } finally {
                 log.info("READY");
             }
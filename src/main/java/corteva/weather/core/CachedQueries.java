@@ -0,0 +1,102 @@
+package corteva.weather.core;
+
+import org.springframework.data.domain.*;
+import org.springframework.data.support.*;
+
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * The read path the services share.
+ * Identical concurrent queries share one call (see SingleFlight), totals
+ * and, optionally, pages are cached against a dataset generation (see
+ * VersionedCache), every db call goes through the DbLimiter, and a
+ * station's queries go to its shard while queries across stations go to
+ * every shard and have their first rows merged into the page (see Shards).
+ * Queries are identified by whatever the service uses as a key, which
+ * must tell apart everything that changes the result.
+ */
+final class CachedQueries {
+    private record PageKey(Object query, boolean counted) {
+    }
+
+    private record CountKey(Object query) {
+    }
+
+    private final DbLimiter limiter;
+    private final Shards shards;
+    private final LongSupplier generation;
+    private final SingleFlight<Object> flights = new SingleFlight<>(); // by PageKey or CountKey
+    private final VersionedCache<Object, Long> counts; // by query
+    private final VersionedCache<PageKey, Slice<?>> pages; // weighed by rows, null when pages aren't cached
+
+    // totals are cached, pages are not
+    CachedQueries(DbLimiter limiter, Shards shards, LongSupplier generation, int maxCounts) {
+        this.limiter = limiter;
+        this.shards = shards;
+        this.generation = generation;
+        this.counts = new VersionedCache<>(maxCounts);
+        this.pages = null;
+    }
+
+    CachedQueries(DbLimiter limiter, Shards shards, LongSupplier generation, int maxCounts, int maxPages, long maxRows) {
+        this.limiter = limiter;
+        this.shards = shards;
+        this.generation = generation;
+        this.counts = new VersionedCache<>(maxCounts);
+        this.pages = new VersionedCache<>(maxPages, maxRows, slice -> slice.getNumberOfElements() + 1);
+    }
+
+    /**
+     * The page, with its total from the count cache.
+     *
+     * @param station   the station every row belongs to, or null for all of them
+     * @param keyOrder  the sort each shard returns its first rows in
+     * @param byKey     the same order, to merge those rows by
+     * @param find      one shard's rows for the given paging
+     * @param count     one shard's total
+     */
+    @SuppressWarnings("unchecked")
+    <T> Page<T> findAll(Object query, String station, Pageable paging, Sort keyOrder, Comparator<? super T> byKey,
+                        Function<Pageable, Slice<T>> find, Supplier<Long> count) {
+        PageKey key = new PageKey(query, true);
+        return (Page<T>) flights.run(key, () -> cached(key, () -> {
+            Slice<T> slice = find(station, paging, keyOrder, byKey, find);
+            return PageableExecutionUtils.getPage(slice.getContent(), paging, () -> count(query, station, count));
+        }));
+    }
+
+    /**
+     * The page, without a total, see findAll.
+     */
+    @SuppressWarnings("unchecked")
+    <T> Slice<T> findSlice(Object query, String station, Pageable paging, Sort keyOrder, Comparator<? super T> byKey,
+                           Function<Pageable, Slice<T>> find) {
+        PageKey key = new PageKey(query, false);
+        return (Slice<T>) flights.run(key, () -> cached(key, () -> find(station, paging, keyOrder, byKey, find)));
+    }
+
+    /**
+     * The total from the station's shard, or summed over every shard.
+     */
+    long count(Object query, String station, Supplier<Long> count) {
+        Supplier<Long> limited = () -> limiter.call(count);
+        return flights.run(new CountKey(query), () -> counts.get(query, generation, () -> station != null
+                ? shards.forStation(station, limited)
+                : shards.onEach(limited).stream().mapToLong(Long::longValue).sum()));
+    }
+
+    private Slice<?> cached(PageKey key, Supplier<Slice<?>> loader) {
+        return pages == null ? loader.get() : pages.get(key, generation, loader);
+    }
+
+    // a station's page from its shard, otherwise every shard's first rows merged into the page, within the db limit
+    private <T> Slice<T> find(String station, Pageable paging, Sort keyOrder, Comparator<? super T> byKey,
+                              Function<Pageable, Slice<T>> find) {
+        if (station != null || !shards.isSharded()) {
+            return shards.forStation(station, () -> limiter.call(() -> find.apply(paging)));
+        }
+        Pageable firstRows = shards.firstRows(paging, keyOrder);
+        return Shards.merge(shards.onEach(() -> limiter.call(() -> find.apply(firstRows))), byKey, paging);
+    }
+}
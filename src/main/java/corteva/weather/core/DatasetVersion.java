@@ -0,0 +1,57 @@
+package corteva.weather.core;
+
+import org.springframework.stereotype.*;
+
+import java.util.concurrent.atomic.*;
+
+/**
+ * Generation numbers for the measurement & stats data.
+ * The import advances the measurements generation when it finishes,
+ * and summarization advances the stats generation, so anything
+ * derived from the data can be tagged with the generation it was
+ * derived from and thrown away once that has moved on.
+ * Each generation also has the time it started, and generations restart
+ * at 0 with the app, so together with the startup time they identify a
+ * version of the data, e.g. for http ETags.
+ */
+@Component
+public class DatasetVersion {
+    private final long started = System.currentTimeMillis();
+    private final AtomicLong measurements = new AtomicLong();
+    private final AtomicLong stats = new AtomicLong();
+    private volatile long measurementsModified = started;
+    private volatile long statsModified = started;
+
+    // when the app started, in epoch millis
+    public long getStarted() {
+        return started;
+    }
+
+    public long getMeasurements() {
+        return measurements.get();
+    }
+
+    public long getStats() {
+        return stats.get();
+    }
+
+    // when the measurements generation last advanced, in epoch millis
+    public long getMeasurementsModified() {
+        return measurementsModified;
+    }
+
+    // when the stats generation last advanced, in epoch millis
+    public long getStatsModified() {
+        return statsModified;
+    }
+
+    public void advanceMeasurements() {
+        measurementsModified = System.currentTimeMillis();
+        measurements.incrementAndGet();
+    }
+
+    public void advanceStats() {
+        statsModified = System.currentTimeMillis();
+        stats.incrementAndGet();
+    }
+}
@@ -0,0 +1,20 @@
+package corteva.weather.core;
+
+import java.time.*;
+
+/**
+ * An inclusive range of dates, either end may be null for open-ended.
+ */
+public record DateRange(LocalDate from, LocalDate to) {
+    public static final DateRange ALL = new DateRange(null, null);
+
+    public DateRange {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("from is after to");
+        }
+    }
+
+    public boolean isUnbounded() {
+        return from == null && to == null;
+    }
+}
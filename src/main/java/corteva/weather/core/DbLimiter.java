@@ -0,0 +1,40 @@
+package corteva.weather.core;
+
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.stereotype.*;
+
+import java.util.concurrent.*;
+import java.util.function.*;
+
+/**
+ * Bounds how many api queries hit the db at once to `db.concurrency.max`,
+ * below the connection pool size, so bursts can't take every connection.
+ * Excess queries wait up to `db.concurrency.wait-ms` for a slot and are
+ * then shed with a TooBusyException.
+ */
+@Component
+public class DbLimiter {
+    private final Semaphore permits;
+    private final long waitMs;
+
+    public DbLimiter(@Value("${db.concurrency.max:8}") int max, @Value("${db.concurrency.wait-ms:1000}") long waitMs) {
+        this.permits = new Semaphore(max, true);
+        this.waitMs = waitMs;
+    }
+
+    public <T> T call(Supplier<T> query) {
+        try {
+            if (!permits.tryAcquire(waitMs, TimeUnit.MILLISECONDS)) {
+                throw new TooBusyException(String.format("no db slot free after %d ms", waitMs));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TooBusyException("interrupted waiting for a db slot");
+        }
+        try {
+            return query.get();
+        } finally {
+            permits.release();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package corteva.weather.core;
+
+import java.time.*;
+
+/**
+ * A set of dates, stored as one bit per epoch day.
+ * A station's whole history is a few KB, and lookups are constant time.
+ * The bitmap only spans the days between the first and last date added,
+ * growing in either direction as needed.
+ * Not thread-safe.
+ */
+public class EpochDaySet {
+    private static final int MIN_GROWTH = 16; // words, about 3 years
+
+    private long[] words = new long[0];
+    private long firstWord; // word index (epoch day / 64) held by words[0]
+    private int size;
+
+    public boolean contains(long epochDay) {
+        long w = (epochDay >> 6) - firstWord;
+        return w >= 0 && w < words.length && (words[(int) w] & (1L << epochDay)) != 0;
+    }
+
+    public boolean contains(LocalDate date) {
+        return contains(date.toEpochDay());
+    }
+
+    /**
+     * @return true if the day was not already in the set
+     */
+    public boolean add(long epochDay) {
+        int w = ensureWord(epochDay >> 6);
+        long bit = 1L << epochDay;
+        if ((words[w] & bit) != 0) return false;
+        words[w] |= bit;
+        size++;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // make room for the given word, returning its index into words
+    private int ensureWord(long word) {
+        if (words.length == 0) {
+            words = new long[MIN_GROWTH];
+            firstWord = word - MIN_GROWTH / 2;
+        } else if (word < firstWord) {
+            int extra = (int) (firstWord - word) + Math.max(MIN_GROWTH, words.length / 4);
+            long[] grown = new long[words.length + extra];
+            System.arraycopy(words, 0, grown, extra, words.length);
+            words = grown;
+            firstWord -= extra;
+        } else if (word >= firstWord + words.length) {
+            int extra = (int) (word - firstWord - words.length) + 1 + Math.max(MIN_GROWTH, words.length / 4);
+            long[] grown = new long[words.length + extra];
+            System.arraycopy(words, 0, grown, 0, words.length);
+            words = grown;
+        }
+        return (int) (word - firstWord);
+    }
+}
@@ -0,0 +1,86 @@
+package corteva.weather.core;
+
+import java.util.*;
+
+/**
+ * A station's measurements held column by column in primitive arrays,
+ * so the import can collect rows without creating an entity per row.
+ * Dates are epoch days, and nulls are held as {@link #NULL_VALUE}.
+ */
+public class MeasurementBatch {
+    public static final int NULL_VALUE = -9999;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final String station;
+    private long[] epochDays;
+    private int[] maxTemps;
+    private int[] minTemps;
+    private int[] totalPrecips;
+    private int size;
+
+    public MeasurementBatch(String station) {
+        this(station, INITIAL_CAPACITY);
+    }
+
+    public MeasurementBatch(String station, int capacity) {
+        this.station = station;
+        this.epochDays = new long[capacity];
+        this.maxTemps = new int[capacity];
+        this.minTemps = new int[capacity];
+        this.totalPrecips = new int[capacity];
+    }
+
+    public void add(long epochDay, int maxTemp, int minTemp, int totalPrecip) {
+        if (size == epochDays.length) grow();
+        epochDays[size] = epochDay;
+        maxTemps[size] = maxTemp;
+        minTemps[size] = minTemp;
+        totalPrecips[size] = totalPrecip;
+        size++;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean isFull() {
+        return size == epochDays.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getStation() {
+        return station;
+    }
+
+    public long getEpochDay(int i) {
+        return epochDays[i];
+    }
+
+    public int getMaxTemp(int i) {
+        return maxTemps[i];
+    }
+
+    public int getMinTemp(int i) {
+        return minTemps[i];
+    }
+
+    public int getTotalPrecip(int i) {
+        return totalPrecips[i];
+    }
+
+    // double the capacity of every column
+    private void grow() {
+        int capacity = Math.max(INITIAL_CAPACITY, epochDays.length * 2);
+        epochDays = Arrays.copyOf(epochDays, capacity);
+        maxTemps = Arrays.copyOf(maxTemps, capacity);
+        minTemps = Arrays.copyOf(minTemps, capacity);
+        totalPrecips = Arrays.copyOf(totalPrecips, capacity);
+    }
+}
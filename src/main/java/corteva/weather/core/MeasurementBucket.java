@@ -0,0 +1,14 @@
+package corteva.weather.core;
+
+import java.time.*;
+
+/**
+ * Measurements of a station summarized over a week or month.
+ * Like Stats, temps are in C and precip is in cm.
+ *
+ * @param start the bucket's first day
+ * @param days  how many days in the bucket have measurements
+ */
+public record MeasurementBucket(String station, LocalDate start, int days,
+                                Float minTemp, Float maxTemp, Float avgMinTemp, Float avgMaxTemp, Float totalPrecip) {
+}
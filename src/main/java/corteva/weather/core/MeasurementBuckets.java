@@ -0,0 +1,77 @@
+package corteva.weather.core;
+
+import org.springframework.data.domain.*;
+import org.springframework.jdbc.core.*;
+import org.springframework.stereotype.*;
+
+import java.sql.*;
+import java.time.*;
+import java.util.*;
+
+/**
+ * Downsamples measurements in the database, grouping each station's rows
+ * into buckets, so only one row per bucket is sent back.
+ * Buckets are ordered by station then start, and paged as a Slice.
+ */
+@Repository
+public class MeasurementBuckets {
+    private static final String SELECT = """
+            SELECT m.station, %s AS bucket, COUNT(*),
+                ROUND(MIN(m.min_temp)/10.0, 1), ROUND(MAX(m.max_temp)/10.0, 1),
+                ROUND(AVG(m.min_temp)/10.0, 1), ROUND(AVG(m.max_temp)/10.0, 1),
+                ROUND(SUM(m.total_precip)/10.0/10.0, 2)
+            FROM measurements m
+            WHERE 1 = 1""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MeasurementBuckets(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * A page of buckets for the measurements matching the station & range,
+     * either may be null.
+     */
+    public Slice<MeasurementBucket> find(String station, DateRange range, Resolution resolution, Pageable paging) {
+        StringBuilder sql = new StringBuilder(String.format(SELECT, resolution.getBucketStart()));
+        List<Object> args = new ArrayList<>();
+        if (station != null) {
+            sql.append(" AND m.station = ?");
+            args.add(station);
+        }
+        if (range.from() != null) {
+            sql.append(" AND m.date >= ?");
+            args.add(range.from());
+        }
+        if (range.to() != null) {
+            sql.append(" AND m.date <= ?");
+            args.add(range.to());
+        }
+        sql.append(" GROUP BY m.station, bucket ORDER BY m.station, bucket LIMIT ? OFFSET ?");
+        args.add(paging.getPageSize() + 1);
+        args.add(paging.getOffset());
+
+        List<MeasurementBucket> content = jdbcTemplate.query(sql.toString(), (rs, i) -> new MeasurementBucket(
+                rs.getString(1),
+                rs.getObject(2, LocalDate.class),
+                rs.getInt(3),
+                getFloat(rs, 4),
+                getFloat(rs, 5),
+                getFloat(rs, 6),
+                getFloat(rs, 7),
+                getFloat(rs, 8)
+        ), args.toArray());
+
+        boolean hasNext = content.size() > paging.getPageSize();
+        if (hasNext) {
+            content = content.subList(0, paging.getPageSize());
+        }
+        return new SliceImpl<>(content, paging, hasNext);
+    }
+
+    private static Float getFloat(ResultSet rs, int column) throws SQLException {
+        float value = rs.getFloat(column);
+        return rs.wasNull() ? null : value;
+    }
+}
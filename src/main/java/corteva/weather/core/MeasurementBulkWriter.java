@@ -0,0 +1,98 @@
+package corteva.weather.core;
+
+import lombok.extern.slf4j.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.jdbc.core.*;
+import org.springframework.stereotype.*;
+import org.springframework.transaction.annotation.*;
+
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Write path for the bulk import.
+ * JPA's saveAll has to merge every row, because the key is assigned,
+ * which costs a SELECT per insert. This writes straight through JDBC
+ * with multi-row INSERT statements instead. JPA is still used for reads.
+ * This is MySQL specific (INSERT IGNORE, ON DUPLICATE KEY, FROM_DAYS).
+ */
+@Repository
+@Slf4j
+public class MeasurementBulkWriter {
+    private static final long DAYS_0000_TO_1970 = 719_528L; // FROM_DAYS counts from year 0
+
+    /**
+     * How to treat rows whose (station, date) already exists.
+     */
+    public enum Mode {
+        INSERT, // fail the statement
+        IGNORE, // keep the existing row
+        UPSERT  // replace the existing row's values
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Mode, String> fullStatements = new ConcurrentHashMap<>();
+
+    @Value("${bulk.import.rows-per-insert:1000}")
+    private int rowsPerInsert; // rows in each multi-row INSERT
+
+    public MeasurementBulkWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Write every row of the batch, in one transaction, so a batch split
+     * over several statements is either written whole or not at all.
+     *
+     * @return rows affected, as reported by MySQL (an upserted row that changed counts twice)
+     */
+    @Transactional
+    public int write(MeasurementBatch batch, Mode mode) {
+        int affected = 0;
+        for (int from = 0; from < batch.size(); from += rowsPerInsert) {
+            int start = from;
+            int rows = Math.min(rowsPerInsert, batch.size() - from);
+            String sql = rows == rowsPerInsert
+                    ? fullStatements.computeIfAbsent(mode, m -> toSql(m, rowsPerInsert))
+                    : toSql(mode, rows);
+            affected += jdbcTemplate.update(sql, ps -> bind(ps, batch, start, rows));
+        }
+        log.debug(String.format("%s: wrote %,d rows, %,d affected", batch.getStation(), batch.size(), affected));
+        return affected;
+    }
+
+    // build a multi-row insert statement for the given number of rows
+    private String toSql(Mode mode, int rows) {
+        StringBuilder sql = new StringBuilder(mode == Mode.IGNORE ? "INSERT IGNORE" : "INSERT")
+                .append(" INTO measurements (station, date, max_temp, min_temp, total_precip) VALUES ");
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) sql.append(',');
+            sql.append("(?,FROM_DAYS(?),?,?,?)");
+        }
+        if (mode == Mode.UPSERT) {
+            sql.append(" ON DUPLICATE KEY UPDATE max_temp = VALUES(max_temp), min_temp = VALUES(min_temp), total_precip = VALUES(total_precip)");
+        }
+        return sql.toString();
+    }
+
+    // set the parameters for rows [start, start + rows) of the batch
+    private void bind(PreparedStatement ps, MeasurementBatch batch, int start, int rows) throws SQLException {
+        int p = 1;
+        for (int i = start; i < start + rows; i++) {
+            ps.setString(p++, batch.getStation());
+            ps.setLong(p++, batch.getEpochDay(i) + DAYS_0000_TO_1970);
+            setNullable(ps, p++, batch.getMaxTemp(i));
+            setNullable(ps, p++, batch.getMinTemp(i));
+            setNullable(ps, p++, batch.getTotalPrecip(i));
+        }
+    }
+
+    private void setNullable(PreparedStatement ps, int index, int value) throws SQLException {
+        if (value == MeasurementBatch.NULL_VALUE) {
+            ps.setNull(index, Types.INTEGER);
+        } else {
+            ps.setInt(index, value);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package corteva.weather.core;
+
+import com.zaxxer.hikari.*;
+import jakarta.annotation.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.boot.autoconfigure.jdbc.*;
+import org.springframework.boot.context.properties.bind.*;
+import org.springframework.core.env.*;
+import org.springframework.jdbc.core.*;
+import org.springframework.stereotype.*;
+
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Reads measurements for export as a forward-only stream of rows,
+ * so memory use doesn't depend on how many rows match.
+ * Rows are fetched `export.fetch-size` at a time through a server side
+ * cursor, in (station, date) order. Cursor fetching makes the driver use
+ * server side prepared statements, so it's only turned on for the export's
+ * own small pool per shard rather than the main datasource, and an export
+ * holding a connection for minutes can't starve api queries.
+ * At most `export.max-concurrent` exports run at once; callers reserve a
+ * slot before they start streaming and release it when done.
+ * The pools are otherwise set up from `spring.datasource.hikari`.
+ * With sharding, an export of all stations reads one shard after another,
+ * so rows are in (station, date) order within each shard, not overall.
+ */
+@Repository
+public class MeasurementExport {
+
+    /**
+     * Gets each exported row, straight from the result set.
+     */
+    public interface RowWriter {
+        void write(String station, String date, Integer minTemp, Integer maxTemp, Integer totalPrecip) throws Exception;
+    }
+
+    private final List<HikariDataSource> pools = new ArrayList<>(); // by shard
+    private final List<JdbcTemplate> jdbcTemplates = new ArrayList<>(); // by shard
+    private final Shards shards;
+    private final Semaphore slots;
+    private final long waitMs;
+
+    public MeasurementExport(DataSourceProperties properties, Environment environment, Shards shards,
+                             @Value("${export.fetch-size:1000}") int fetchSize,
+                             @Value("${export.max-concurrent:2}") int maxConcurrent,
+                             @Value("${db.concurrency.wait-ms:1000}") long waitMs) {
+        this.shards = shards;
+        this.slots = new Semaphore(maxConcurrent, true);
+        this.waitMs = waitMs;
+        Binder binder = Binder.get(environment);
+        for (int shard = 0; shard < shards.count(); shard++) {
+            String url = shards.getUrl(shard);
+            HikariDataSource pool = ShardingConfig.pool(properties, binder, url == null ? properties.determineUrl() : url);
+            pool.setPoolName("export-" + shard);
+            pool.setMaximumPoolSize(maxConcurrent);
+            pool.setMinimumIdle(0);
+            pool.addDataSourceProperty("useCursorFetch", "true");
+            pools.add(pool);
+
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(pool);
+            jdbcTemplate.setFetchSize(fetchSize);
+            jdbcTemplates.add(jdbcTemplate);
+        }
+    }
+
+    /**
+     * A reserved export slot. Releasing it more than once gives it back
+     * only once, so every path that may end an export can release it.
+     */
+    public final class Slot {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                slots.release();
+            }
+        }
+    }
+
+    /**
+     * Take one of the export slots, to be given back once the export is done.
+     *
+     * @throws TooBusyException if none frees up in `db.concurrency.wait-ms`
+     */
+    public Slot reserve() {
+        try {
+            if (!slots.tryAcquire(waitMs, TimeUnit.MILLISECONDS)) {
+                throw new TooBusyException(String.format("no export slot free after %d ms", waitMs));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TooBusyException("interrupted waiting for an export slot");
+        }
+        return new Slot();
+    }
+
+    /**
+     * Hand every measurement of the station (all stations when null)
+     * within the range to the writer.
+     */
+    public void export(String station, DateRange range, RowWriter writer) {
+        StringBuilder sql = new StringBuilder("SELECT station, date, min_temp, max_temp, total_precip FROM measurements WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (station != null) {
+            sql.append(" AND station = ?");
+            args.add(station);
+        }
+        if (range.from() != null) {
+            sql.append(" AND date >= ?");
+            args.add(range.from());
+        }
+        if (range.to() != null) {
+            sql.append(" AND date <= ?");
+            args.add(range.to());
+        }
+        sql.append(" ORDER BY station, date");
+
+        if (station != null) {
+            query(jdbcTemplates.get(shards.shardOf(station)), sql.toString(), args.toArray(), writer);
+        } else {
+            for (JdbcTemplate jdbcTemplate : jdbcTemplates) {
+                query(jdbcTemplate, sql.toString(), args.toArray(), writer);
+            }
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        pools.forEach(HikariDataSource::close);
+    }
+
+    private static void query(JdbcTemplate jdbcTemplate, String sql, Object[] args, RowWriter writer) {
+        jdbcTemplate.query(sql, rs -> {
+            try {
+                writer.write(rs.getString(1), rs.getString(2), getInteger(rs, 3), getInteger(rs, 4), getInteger(rs, 5));
+            } catch (SQLException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new SQLException("export write failed", e);
+            }
+        }, args);
+    }
+
+    private static Integer getInteger(ResultSet rs, int column) throws SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? null : value;
+    }
+}
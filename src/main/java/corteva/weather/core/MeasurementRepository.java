@@ -1,6 +1,7 @@
 package corteva.weather.core;
 
 import org.springframework.data.domain.*;
+import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.*;
 
 import java.util.*;
@@ -9,10 +10,12 @@ import java.util.*;
  * handles persistence & paging + sorting,
  * just like it says on the tin.
  */
-public interface MeasurementRepository extends PagingAndSortingRepository<Measurement, MeasurementId>, ListCrudRepository<Measurement, MeasurementId> {
+public interface MeasurementRepository extends PagingAndSortingRepository<Measurement, MeasurementId>, ListCrudRepository<Measurement, MeasurementId>, MeasurementRepositoryCustom {
 
     List<Measurement> findAllByStation(String station);
 
     <T> Page<Measurement> findAll(Example<T> of, Pageable paging);
 
+    <T extends Measurement> long count(Example<T> of);
+
 }
@@ -0,0 +1,18 @@
+package corteva.weather.core;
+
+import org.springframework.data.domain.*;
+import org.springframework.data.jpa.domain.*;
+
+/**
+ * Queries Spring Data can't derive, implemented in MeasurementRepositoryImpl.
+ */
+public interface MeasurementRepositoryCustom {
+
+    // a page of results, without counting all of them
+    Slice<Measurement> findSlice(Specification<Measurement> spec, Pageable paging);
+
+    long count(Specification<Measurement> spec);
+
+    // just the station's dates, as epoch days, so no entities or boxed values are created
+    EpochDaySet findEpochDaysByStation(String station);
+}
@@ -0,0 +1,38 @@
+package corteva.weather.core;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.*;
+import org.springframework.data.jpa.domain.*;
+import org.springframework.jdbc.core.*;
+
+/**
+ * Spring Data picks this up as the implementation of MeasurementRepositoryCustom.
+ */
+class MeasurementRepositoryImpl implements MeasurementRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+
+    MeasurementRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Slice<Measurement> findSlice(Specification<Measurement> spec, Pageable paging) {
+        return Slices.find(entityManager, Measurement.class, spec, paging);
+    }
+
+    @Override
+    public long count(Specification<Measurement> spec) {
+        return Slices.count(entityManager, Measurement.class, spec);
+    }
+
+    // each row goes straight into the set
+    @Override
+    public EpochDaySet findEpochDaysByStation(String station) {
+        EpochDaySet dates = new EpochDaySet();
+        jdbcTemplate.query("SELECT DATEDIFF(date, '1970-01-01') FROM measurements WHERE station = ?",
+                (RowCallbackHandler) rs -> dates.add(rs.getLong(1)), station);
+        return dates;
+    }
+}
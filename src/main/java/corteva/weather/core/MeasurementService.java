@@ -1,32 +1,116 @@
 package corteva.weather.core;
 
+import org.springframework.beans.factory.annotation.*;
 import org.springframework.data.domain.*;
+import org.springframework.data.jpa.domain.*;
+import org.springframework.data.support.*;
 import org.springframework.stereotype.*;
 
 import java.util.*;
 
 /**
  * Business logic goes here
+ * Totals for paged results are counted once per filter and cached
+ * until the next import changes the measurements.
+ * Every query is filtered by an example (exact station & date) and a
+ * date range.
+ * When the MeasurementStore is enabled and current, reads are answered
+ * from memory instead of the db.
+ * Otherwise identical concurrent queries share one db call, db calls
+ * are limited and queries across stations go to every shard (see CachedQueries).
  */
 @Service
 public class MeasurementService {
+    // identifies a query, `arg` holds whatever else the kind of query takes
+    private record Query(String kind, Measurement example, DateRange range, Pageable paging, Object arg) {
+    }
+
+    private static final Sort KEY_ORDER = Sort.by("station", "date");
+    private static final Comparator<Measurement> BY_KEY = Comparator.comparing(Measurement::getStation).thenComparing(Measurement::getDate);
+    private static final Comparator<MeasurementBucket> BY_BUCKET = Comparator.comparing(MeasurementBucket::station).thenComparing(MeasurementBucket::start);
 
     final MeasurementRepository repository;
+    private final MeasurementBuckets buckets;
+    private final MeasurementStore store;
+    private final Shards shards;
+    private final CachedQueries queries; // totals cached, pages not
 
-    public MeasurementService(MeasurementRepository repository) {
+    public MeasurementService(MeasurementRepository repository, MeasurementBuckets buckets, MeasurementStore store,
+                              DatasetVersion version, DbLimiter limiter, Shards shards,
+                              @Value("${count.cache.max-entries:10000}") int maxCounts) {
         this.repository = repository;
+        this.buckets = buckets;
+        this.store = store;
+        this.shards = shards;
+        this.queries = new CachedQueries(limiter, shards, version::getMeasurements, maxCounts);
     }
 
-    public List<Measurement> createAll(List<Measurement> list) {
-        return repository.saveAll(list);
+    public List<Measurement> findAllByStation(String station) {
+        return shards.forStation(station, () -> repository.findAllByStation(station));
     }
 
-    public List<Measurement> findAllByStation(String station) {
-        return repository.findAllByStation(station);
+    public EpochDaySet findDatesByStation(String station) {
+        return shards.forStation(station, () -> repository.findEpochDaysByStation(station));
+    }
+
+    // the page, with its total from the count cache
+    public Page<Measurement> findAll(Measurement example, DateRange range, Pageable paging) {
+        Slice<Measurement> slice = findSlice(example, range, paging);
+        return PageableExecutionUtils.getPage(slice.getContent(), paging, () -> count(example, range));
+    }
+
+    // the page, without a total
+    public Slice<Measurement> findSlice(Measurement example, DateRange range, Pageable paging) {
+        if (store.isCurrent()) {
+            return store.findSlice(example, range, paging);
+        }
+        return queries.findSlice(new Query("slice", example, range, paging, null), example.getStation(), paging, KEY_ORDER, BY_KEY,
+                p -> repository.findSlice(matching(example, range), p));
+    }
+
+    public long count(Measurement example, DateRange range) {
+        if (store.isCurrent()) {
+            return store.count(example, range);
+        }
+        return queries.count(new Query("count", example, range, null, null), example.getStation(), () -> range.isUnbounded()
+                ? repository.count(Example.of(example))
+                : repository.count(matching(example, range)));
+    }
+
+    /**
+     * The matches downsampled to one row per station and bucket,
+     * computed by the database. The example's date is ignored, use the range.
+     */
+    public Slice<MeasurementBucket> findBuckets(Measurement example, DateRange range, Resolution resolution, Pageable paging) {
+        if (store.isCurrent()) {
+            return store.findBuckets(example, range, resolution, paging);
+        }
+        return queries.findSlice(new Query("buckets", example, range, paging, resolution), example.getStation(), paging, Sort.unsorted(), BY_BUCKET,
+                p -> buckets.find(example.getStation(), range, resolution, p));
+    }
+
+    /**
+     * Keyset paging: the next `size` matches after the given key, in
+     * (station, date) order, or from the start when the key is null.
+     * This seeks on the primary key, so deep pages cost the same as the first.
+     */
+    public Slice<Measurement> findAfter(Measurement example, DateRange range, MeasurementId after, int size) {
+        if (store.isCurrent()) {
+            return store.findAfter(example, range, after, size);
+        }
+        Specification<Measurement> spec = matching(example, range);
+        if (after != null) {
+            spec = spec.and(MeasurementSpecs.after(after));
+        }
+        Pageable paging = PageRequest.of(0, size, KEY_ORDER);
+        Specification<Measurement> seek = spec;
+        return queries.findSlice(new Query("after", example, range, paging, after), example.getStation(), paging, KEY_ORDER, BY_KEY,
+                p -> repository.findSlice(seek, p));
     }
 
-    public Page<Measurement> findAll(Measurement example, Pageable paging) {
-        return repository.findAll(Example.of(example), paging);
+    private static Specification<Measurement> matching(Measurement example, DateRange range) {
+        Specification<Measurement> spec = MeasurementSpecs.matching(example);
+        return range.isUnbounded() ? spec : spec.and(MeasurementSpecs.within(range));
     }
 
 }
@@ -0,0 +1,39 @@
+package corteva.weather.core;
+
+import org.springframework.data.jpa.domain.*;
+
+/**
+ * Criteria for measurement queries that query-by-example can't express.
+ */
+public final class MeasurementSpecs {
+
+    private MeasurementSpecs() {
+    }
+
+    // equal to the example's non-null station & date
+    public static Specification<Measurement> matching(Measurement example) {
+        return (root, query, cb) -> cb.and(
+                example.getStation() == null ? cb.conjunction() : cb.equal(root.get("station"), example.getStation()),
+                example.getDate() == null ? cb.conjunction() : cb.equal(root.get("date"), example.getDate())
+        );
+    }
+
+    // within the range, inclusive of both ends
+    public static Specification<Measurement> within(DateRange range) {
+        return (root, query, cb) -> cb.and(
+                range.from() == null ? cb.conjunction() : cb.greaterThanOrEqualTo(root.get("date"), range.from()),
+                range.to() == null ? cb.conjunction() : cb.lessThanOrEqualTo(root.get("date"), range.to())
+        );
+    }
+
+    // strictly after the given key, in (station, date) order
+    public static Specification<Measurement> after(MeasurementId key) {
+        return (root, query, cb) -> cb.or(
+                cb.greaterThan(root.get("station"), key.getStation()),
+                cb.and(
+                        cb.equal(root.get("station"), key.getStation()),
+                        cb.greaterThan(root.get("date"), key.getDate())
+                )
+        );
+    }
+}
@@ -0,0 +1,291 @@
+package corteva.weather.core;
+
+import lombok.extern.slf4j.*;
+import org.apache.commons.lang3.time.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.data.domain.*;
+import org.springframework.jdbc.core.*;
+import org.springframework.stereotype.*;
+
+import javax.sql.*;
+import java.math.*;
+import java.sql.*;
+import java.time.*;
+import java.util.*;
+
+/**
+ * An optional in-memory copy of the measurements, enabled by
+ * `measurements.store.enabled`, that answers reads without the db.
+ * Each station is held as primitive columns sorted by epoch day (see
+ * StationSeries), so lookups are binary searches and only the rows of
+ * the requested page become Measurement objects.
+ * The store is reloaded after each import, and a snapshot is only used
+ * while its generation is the current measurements generation, so
+ * readers fall back to the db while a reload is running or after it failed.
+ * With sharding, every shard is loaded into the one store, in turn.
+ * Loads stream their rows from the driver, so only the store itself is
+ * held in memory, not the result set.
+ */
+@Component
+@Slf4j
+public class MeasurementStore {
+    private static final String SELECT = "SELECT station, DATEDIFF(date, '1970-01-01'), max_temp, min_temp, total_precip FROM measurements";
+
+    // the series by station, and in station order for scans
+    private record Snapshot(long generation, SortedMap<String, StationSeries> byStation, StationSeries[] series) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DatasetVersion version;
+    private final Shards shards;
+    private final boolean enabled;
+    private volatile Snapshot snapshot;
+
+    public MeasurementStore(DataSource dataSource, DatasetVersion version, Shards shards,
+                            @Value("${measurements.store.enabled:false}") boolean enabled) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        // Connector/J streams rows one at a time for this fetch size, rather than reading the whole table into the heap
+        this.jdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+        this.version = version;
+        this.shards = shards;
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return true if reads can be served from memory right now
+     */
+    public boolean isCurrent() {
+        Snapshot current = snapshot;
+        return current != null && current.generation() == version.getMeasurements();
+    }
+
+    /**
+     * Reload every station.
+     */
+    public synchronized void refresh() {
+        if (!enabled) return;
+
+        long generation = version.getMeasurements();
+        StopWatch stopWatch = StopWatch.createStarted();
+        try {
+            SortedMap<String, StationSeries> byStation = new TreeMap<>();
+            for (int shard = 0; shard < shards.count(); shard++) {
+                shards.run(shard, () -> load(SELECT + " ORDER BY station, date", byStation));
+            }
+            publish(generation, byStation);
+            log.info(String.format("measurement store loaded: %,d stations, elapsed time: %s", byStation.size(), stopWatch.formatTime()));
+        } catch (RuntimeException e) {
+            log.error("measurement store load failed, reading from the db", e);
+        }
+    }
+
+    /**
+     * Reload just the given stations after an import that only changed those.
+     * Falls back to a full reload unless the current snapshot is from the
+     * generation just before this one.
+     */
+    public synchronized void refresh(Collection<String> stations) {
+        if (!enabled) return;
+
+        long generation = version.getMeasurements();
+        Snapshot current = snapshot;
+        if (current == null || current.generation() != generation - 1) {
+            refresh();
+            return;
+        }
+        try {
+            SortedMap<String, StationSeries> byStation = new TreeMap<>(current.byStation());
+            for (String station : stations) {
+                byStation.remove(station);
+                shards.runForStation(station, () -> load(SELECT + " WHERE station = ? ORDER BY date", byStation, station));
+            }
+            publish(generation, byStation);
+        } catch (RuntimeException e) {
+            log.error("measurement store reload failed, reading from the db", e);
+        }
+    }
+
+    // the page of matches, in (station, date) order
+    public Slice<Measurement> findSlice(Measurement example, DateRange range, Pageable paging) {
+        return collect(snapshot, 0, example, range, null, paging.getOffset(), paging);
+    }
+
+    // the page of matches after the key, in (station, date) order
+    public Slice<Measurement> findAfter(Measurement example, DateRange range, MeasurementId after, int size) {
+        Snapshot current = snapshot;
+        int from = 0;
+        if (after != null) {
+            from = firstStationFrom(current.series(), after.getStation());
+        }
+        return collect(current, from, example, range, after, 0, PageRequest.of(0, size));
+    }
+
+    public long count(Measurement example, DateRange range) {
+        long count = 0;
+        for (StationSeries series : matchingStations(snapshot, 0, example)) {
+            count += upper(series, example, range) - lower(series, example, range);
+        }
+        return count;
+    }
+
+    /**
+     * The same buckets the db computes in MeasurementBuckets, from memory.
+     */
+    public Slice<MeasurementBucket> findBuckets(Measurement example, DateRange range, Resolution resolution, Pageable paging) {
+        Measurement byStation = new Measurement(example.getStation(), null);
+        List<MeasurementBucket> content = new ArrayList<>();
+        long skip = paging.getOffset();
+        for (StationSeries series : matchingStations(snapshot, 0, byStation)) {
+            int hi = upper(series, byStation, range);
+            int i = lower(series, byStation, range);
+            while (i < hi && content.size() <= paging.getPageSize()) {
+                long start = resolution.startOf(series.getDay(i));
+                long next = resolution.nextStart(start);
+                int end = Math.min(hi, series.lowerBound(next));
+                if (skip > 0) {
+                    skip--;
+                } else {
+                    content.add(toBucket(series, start, i, end));
+                }
+                i = end;
+            }
+            if (content.size() > paging.getPageSize()) break;
+        }
+        return toSlice(content, paging);
+    }
+
+    // walk the stations from the given index, skipping then taking matches
+    private Slice<Measurement> collect(Snapshot current, int fromStation, Measurement example, DateRange range,
+                                       MeasurementId after, long skip, Pageable paging) {
+        List<Measurement> content = new ArrayList<>();
+        for (StationSeries series : matchingStations(current, fromStation, example)) {
+            if (after != null && series.getStation().compareTo(after.getStation()) < 0) continue;
+            int lo = lower(series, example, range);
+            int hi = upper(series, example, range);
+            if (after != null && series.getStation().equals(after.getStation())) {
+                lo = Math.max(lo, series.upperBound(after.getDate().toEpochDay()));
+            }
+            int n = Math.max(0, hi - lo);
+            if (skip >= n) {
+                skip -= n;
+                continue;
+            }
+            lo += (int) skip;
+            skip = 0;
+            for (int i = lo; i < hi && content.size() <= paging.getPageSize(); i++) {
+                content.add(series.toMeasurement(i));
+            }
+            if (content.size() > paging.getPageSize()) break;
+        }
+        return toSlice(content, paging);
+    }
+
+    // index of the first series whose station is >= the given one
+    private static int firstStationFrom(StationSeries[] series, String station) {
+        int lo = 0, hi = series.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (series[mid].getStation().compareTo(station) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static List<StationSeries> matchingStations(Snapshot current, int fromStation, Measurement example) {
+        if (example.getStation() == null) {
+            StationSeries[] series = current.series();
+            return Arrays.asList(series).subList(Math.min(fromStation, series.length), series.length);
+        }
+        StationSeries series = current.byStation().get(example.getStation());
+        return series == null ? List.of() : List.of(series);
+    }
+
+    // first index within the example's date and the range
+    private static int lower(StationSeries series, Measurement example, DateRange range) {
+        long from = Long.MIN_VALUE;
+        if (range.from() != null) from = range.from().toEpochDay();
+        if (example.getDate() != null) from = Math.max(from, example.getDate().toEpochDay());
+        return series.lowerBound(from);
+    }
+
+    // index just past the example's date and the range
+    private static int upper(StationSeries series, Measurement example, DateRange range) {
+        long to = Long.MAX_VALUE;
+        if (range.to() != null) to = range.to().toEpochDay();
+        if (example.getDate() != null) to = Math.min(to, example.getDate().toEpochDay());
+        return series.upperBound(to);
+    }
+
+    // the rows [from, to) as one bucket, rounded like the sql in MeasurementBuckets
+    private static MeasurementBucket toBucket(StationSeries series, long start, int from, int to) {
+        int minTemp = Integer.MAX_VALUE, maxTemp = Integer.MIN_VALUE;
+        long minSum = 0, maxSum = 0, precipSum = 0;
+        int minCount = 0, maxCount = 0, precipCount = 0;
+        for (int i = from; i < to; i++) {
+            short min = series.rawMinTemp(i);
+            if (min != StationSeries.NULL_SHORT) {
+                minTemp = Math.min(minTemp, min);
+                minSum += min;
+                minCount++;
+            }
+            short max = series.rawMaxTemp(i);
+            if (max != StationSeries.NULL_SHORT) {
+                maxTemp = Math.max(maxTemp, max);
+                maxSum += max;
+                maxCount++;
+            }
+            int precip = series.rawTotalPrecip(i);
+            if (precip != StationSeries.NULL_INT) {
+                precipSum += precip;
+                precipCount++;
+            }
+        }
+        return new MeasurementBucket(series.getStation(), LocalDate.ofEpochDay(start), to - from,
+                minCount == 0 ? null : round(minTemp, 10, 1),
+                maxCount == 0 ? null : round(maxTemp, 10, 1),
+                minCount == 0 ? null : round(minSum, 10L * minCount, 1),
+                maxCount == 0 ? null : round(maxSum, 10L * maxCount, 1),
+                precipCount == 0 ? null : round(precipSum, 100, 2));
+    }
+
+    // sum / divisor, rounded half away from zero like mysql does for decimals
+    private static Float round(long sum, long divisor, int places) {
+        return BigDecimal.valueOf(sum).divide(BigDecimal.valueOf(divisor), places, RoundingMode.HALF_UP).floatValue();
+    }
+
+    private static <T> Slice<T> toSlice(List<T> content, Pageable paging) {
+        boolean hasNext = content.size() > paging.getPageSize();
+        if (hasNext) {
+            content = content.subList(0, paging.getPageSize());
+        }
+        return new SliceImpl<>(content, paging, hasNext);
+    }
+
+    // stream the rows, which come ordered by station & date, into series
+    private void load(String sql, SortedMap<String, StationSeries> byStation, Object... args) {
+        StationSeries.Builder[] builder = new StationSeries.Builder[1];
+        jdbcTemplate.query(sql, rs -> {
+            String station = rs.getString(1);
+            if (builder[0] == null || !builder[0].getStation().equals(station)) {
+                if (builder[0] != null) byStation.put(builder[0].getStation(), builder[0].build());
+                builder[0] = new StationSeries.Builder(station);
+            }
+            builder[0].add(rs.getLong(2), getInt(rs, 3), getInt(rs, 4), getInt(rs, 5));
+        }, args);
+        if (builder[0] != null) byStation.put(builder[0].getStation(), builder[0].build());
+    }
+
+    // package-private so tests can fill the store without a db
+    void publish(long generation, SortedMap<String, StationSeries> byStation) {
+        snapshot = new Snapshot(generation, byStation, byStation.values().toArray(new StationSeries[0]));
+    }
+
+    // the column's value, or NULL_INT
+    private static int getInt(ResultSet rs, int column) throws SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? StationSeries.NULL_INT : value;
+    }
+}
@@ -0,0 +1,17 @@
+package corteva.weather.core;
+
+import org.springframework.http.*;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Thrown when an offset page across shards would need more rows from
+ * each shard than `shards.max-merged-rows`, so one request can't pull a
+ * large part of every shard into memory. Such pages are answered with a
+ * 400; filter by station, or use cursor paging where there is one.
+ */
+@ResponseStatus(value = HttpStatus.BAD_REQUEST, reason = "page too deep to merge across shards, filter by station or use a cursor")
+public class PageTooDeepException extends RuntimeException {
+    public PageTooDeepException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,41 @@
+package corteva.weather.core;
+
+import java.time.*;
+
+/**
+ * How measurements are bucketed when downsampled.
+ * Each bucket is keyed by its first day: weeks start on monday.
+ */
+public enum Resolution {
+    DAY("m.date"),
+    WEEK("DATE_SUB(m.date, INTERVAL WEEKDAY(m.date) DAY)"),
+    MONTH("DATE_SUB(m.date, INTERVAL DAYOFMONTH(m.date) - 1 DAY)");
+
+    private final String bucketStart; // sql for the first day of a row's bucket
+
+    Resolution(String bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    String getBucketStart() {
+        return bucketStart;
+    }
+
+    // the first day of the epoch day's bucket, the same day the sql computes
+    long startOf(long epochDay) {
+        return switch (this) {
+            case DAY -> epochDay;
+            case WEEK -> epochDay - Math.floorMod(epochDay + 3, 7); // 1970-01-01 was a thursday
+            case MONTH -> LocalDate.ofEpochDay(epochDay).withDayOfMonth(1).toEpochDay();
+        };
+    }
+
+    // the first day of the bucket after the one starting at start
+    long nextStart(long start) {
+        return switch (this) {
+            case DAY -> start + 1;
+            case WEEK -> start + 7;
+            case MONTH -> LocalDate.ofEpochDay(start).plusMonths(1).toEpochDay();
+        };
+    }
+}
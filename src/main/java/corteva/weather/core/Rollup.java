@@ -0,0 +1,95 @@
+package corteva.weather.core;
+
+import com.fasterxml.jackson.annotation.*;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.*;
+import java.time.*;
+import java.time.format.*;
+
+/**
+ * A station's sums & counts over a month, a decade or all time,
+ * kept next to the yearly stats_totals so coarser periods never need
+ * the measurements re-read, see RollupRepository.
+ * Only the averages are serialized, rounded like Stats;
+ * temps are in C, precip is in cm.
+ */
+@Entity
+@Data
+@Table(name = "rollups")
+@IdClass(RollupId.class)
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Rollup implements Serializable {
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    /**
+     * How long a period a rollup covers.
+     */
+    public enum Level {
+        MONTH, // starting on the 1st of the month
+        DECADE, // starting on Jan 1st of a year ending in 0
+        ALL // one per station, with period ALL_TIME
+    }
+
+    public static final LocalDate ALL_TIME = LocalDate.of(1000, 1, 1);
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @JsonIgnore
+    private Level level;
+    @Id
+    private String station;
+    @Id
+    @JsonIgnore
+    private LocalDate period;
+    @JsonIgnore
+    private long sumMaxTemp;
+    @JsonIgnore
+    private long countMaxTemp;
+    @JsonIgnore
+    private long sumMinTemp;
+    @JsonIgnore
+    private long countMinTemp;
+    @JsonIgnore
+    private long sumPrecip;
+    @JsonIgnore
+    private long countPrecip;
+
+    /**
+     * Add more values to the totals, see StatsTotals.add.
+     */
+    public void add(long sumMaxTemp, long countMaxTemp, long sumMinTemp, long countMinTemp, long sumPrecip, long countPrecip) {
+        this.sumMaxTemp += sumMaxTemp;
+        this.countMaxTemp += countMaxTemp;
+        this.sumMinTemp += sumMinTemp;
+        this.countMinTemp += countMinTemp;
+        this.sumPrecip += sumPrecip;
+        this.countPrecip += countPrecip;
+    }
+
+    // the period as shown, e.g. 1990-07, 1990s, or null for all time
+    @JsonProperty("period")
+    public String getLabel() {
+        if (period == null || level == null) return null;
+        return switch (level) {
+            case MONTH -> MONTH_FORMAT.format(period);
+            case DECADE -> period.getYear() + "s";
+            case ALL -> null;
+        };
+    }
+
+    public Float getAvgMinTemp() {
+        return StatsTotals.average(sumMinTemp, countMinTemp, 10.0, 10.0);
+    }
+
+    public Float getAvgMaxTemp() {
+        return StatsTotals.average(sumMaxTemp, countMaxTemp, 10.0, 10.0);
+    }
+
+    public Float getAvgPrecip() {
+        return StatsTotals.average(sumPrecip, countPrecip, 10.0 * 10.0, 100.0);
+    }
+}
@@ -0,0 +1,18 @@
+package corteva.weather.core;
+
+import lombok.*;
+
+import java.io.*;
+import java.time.*;
+
+/**
+ * The natural key for a rollup.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RollupId implements Serializable {
+    public Rollup.Level level;
+    public String station;
+    public LocalDate period;
+}
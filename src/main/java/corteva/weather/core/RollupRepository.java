@@ -0,0 +1,113 @@
+package corteva.weather.core;
+
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.*;
+import org.springframework.transaction.annotation.*;
+
+import java.time.*;
+
+/**
+ * handles persistence of the rollups, and builds each level from the
+ * one below it using SQL: months from the measurements, the yearly
+ * stats_totals from the months (see StatsTotalsRepository), decades from
+ * the years, and all time from the decades, so only the months ever read
+ * the measurements.
+ * This has several MySQL specific functions
+ * so changing db's would need to address this.
+ */
+public interface RollupRepository extends ListCrudRepository<Rollup, RollupId>, RollupRepositoryCustom {
+    String COLUMNS = "(level, station, period, sum_max_temp, count_max_temp, sum_min_temp, count_min_temp, sum_precip, count_precip) ";
+    // the sums & counts of the measurements
+    String MEASUREMENT_TOTALS = "COALESCE(SUM(m.max_temp), 0) AS sum_max_temp, COUNT(m.max_temp) AS count_max_temp, " +
+            "COALESCE(SUM(m.min_temp), 0) AS sum_min_temp, COUNT(m.min_temp) AS count_min_temp, " +
+            "COALESCE(SUM(m.total_precip), 0) AS sum_precip, COUNT(m.total_precip) AS count_precip ";
+    // the sums & counts of finer totals, t
+    String TOTALS = "SUM(t.sum_max_temp) AS sum_max_temp, SUM(t.count_max_temp) AS count_max_temp, " +
+            "SUM(t.sum_min_temp) AS sum_min_temp, SUM(t.count_min_temp) AS count_min_temp, " +
+            "SUM(t.sum_precip) AS sum_precip, SUM(t.count_precip) AS count_precip ";
+    String REPLACE = "ON DUPLICATE KEY UPDATE " +
+            "sum_max_temp = s.sum_max_temp, count_max_temp = s.count_max_temp, " +
+            "sum_min_temp = s.sum_min_temp, count_min_temp = s.count_min_temp, " +
+            "sum_precip = s.sum_precip, count_precip = s.count_precip";
+
+    // are there any rollups at all, reads one row rather than counting them all, station is never null
+    boolean existsByStationNotNull();
+
+    @Modifying
+    @Query(value = "DELETE FROM rollups", nativeQuery = true)
+    @Transactional
+    void clear();
+
+    @Modifying
+    @Query(value = "INSERT INTO rollups " + COLUMNS +
+            "SELECT 'MONTH', m.station, m.date - INTERVAL (DAYOFMONTH(m.date) - 1) DAY AS period, " +
+            MEASUREMENT_TOTALS +
+            "FROM measurements m " +
+            "GROUP BY m.station, period", nativeQuery = true)
+    @Transactional
+    void summarizeMonths();
+
+    // same as summarizeMonths, but only for one station's dates in [from, to), replacing existing rows
+    @Modifying
+    @Query(value = "INSERT INTO rollups " + COLUMNS +
+            "SELECT * FROM (" +
+            "SELECT 'MONTH' AS level, m.station, m.date - INTERVAL (DAYOFMONTH(m.date) - 1) DAY AS period, " +
+            MEASUREMENT_TOTALS +
+            "FROM measurements m " +
+            "WHERE m.station = :station AND m.date >= :from AND m.date < :to " +
+            "GROUP BY m.station, period" +
+            ") AS s " +
+            REPLACE, nativeQuery = true)
+    @Transactional
+    void summarizeStationMonths(String station, LocalDate from, LocalDate to);
+
+    @Modifying
+    @Query(value = "INSERT INTO rollups " + COLUMNS +
+            "SELECT 'DECADE', t.station, MAKEDATE(YEAR(t.year) DIV 10 * 10, 1) AS period, " +
+            TOTALS +
+            "FROM stats_totals t " +
+            "GROUP BY t.station, period", nativeQuery = true)
+    @Transactional
+    void summarizeDecades();
+
+    // same as summarizeDecades, but only for one station's years in [from, to), which should be whole decades
+    @Modifying
+    @Query(value = "INSERT INTO rollups " + COLUMNS +
+            "SELECT * FROM (" +
+            "SELECT 'DECADE' AS level, t.station, MAKEDATE(YEAR(t.year) DIV 10 * 10, 1) AS period, " +
+            TOTALS +
+            "FROM stats_totals t " +
+            "WHERE t.station = :station AND t.year >= :from AND t.year < :to " +
+            "GROUP BY t.station, period" +
+            ") AS s " +
+            REPLACE, nativeQuery = true)
+    @Transactional
+    void summarizeStationDecades(String station, LocalDate from, LocalDate to);
+
+    // a plain INSERT ... SELECT, since mysql can't select from the table it upserts into through a derived table
+    @Modifying
+    @Query(value = "INSERT INTO rollups " + COLUMNS +
+            "SELECT 'ALL', t.station, DATE '1000-01-01', " +
+            TOTALS +
+            "FROM rollups t " +
+            "WHERE t.level = 'DECADE' " +
+            "GROUP BY t.station", nativeQuery = true)
+    @Transactional
+    void summarizeAllTime();
+
+    // same as summarizeAllTime, but only for one station, after deleteStationAllTime
+    @Modifying
+    @Query(value = "INSERT INTO rollups " + COLUMNS +
+            "SELECT 'ALL', t.station, DATE '1000-01-01', " +
+            TOTALS +
+            "FROM rollups t " +
+            "WHERE t.level = 'DECADE' AND t.station = :station " +
+            "GROUP BY t.station", nativeQuery = true)
+    @Transactional
+    void summarizeStationAllTime(String station);
+
+    @Modifying
+    @Query(value = "DELETE FROM rollups WHERE level = 'ALL' AND station = :station", nativeQuery = true)
+    @Transactional
+    void deleteStationAllTime(String station);
+}
@@ -0,0 +1,15 @@
+package corteva.weather.core;
+
+import org.springframework.data.domain.*;
+import org.springframework.data.jpa.domain.*;
+
+/**
+ * Queries Spring Data can't derive, implemented in RollupRepositoryImpl.
+ */
+public interface RollupRepositoryCustom {
+
+    // a page of results, without counting all of them
+    Slice<Rollup> findSlice(Specification<Rollup> spec, Pageable paging);
+
+    long count(Specification<Rollup> spec);
+}
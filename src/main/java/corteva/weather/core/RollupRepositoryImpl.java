@@ -0,0 +1,23 @@
+package corteva.weather.core;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.*;
+import org.springframework.data.jpa.domain.*;
+
+/**
+ * Spring Data picks this up as the implementation of RollupRepositoryCustom.
+ */
+class RollupRepositoryImpl implements RollupRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Slice<Rollup> findSlice(Specification<Rollup> spec, Pageable paging) {
+        return Slices.find(entityManager, Rollup.class, spec, paging);
+    }
+
+    @Override
+    public long count(Specification<Rollup> spec) {
+        return Slices.count(entityManager, Rollup.class, spec);
+    }
+}
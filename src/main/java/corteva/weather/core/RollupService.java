@@ -0,0 +1,69 @@
+package corteva.weather.core;
+
+import lombok.extern.slf4j.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.data.domain.*;
+import org.springframework.data.jpa.domain.*;
+import org.springframework.stereotype.*;
+
+import java.util.*;
+
+/**
+ * Reads the monthly, decadal & all-time rollups, in (station, period) order.
+ * Rollups are rebuilt along with the stats, so pages & totals are cached
+ * against the stats generation just like StatsService does (see CachedQueries).
+ */
+@Service
+@Slf4j
+public class RollupService {
+    private record PageKey(Rollup.Level level, String station, Pageable paging) {
+    }
+
+    private record CountKey(Rollup.Level level, String station) {
+    }
+
+    private static final Sort KEY_ORDER = Sort.by("station", "period");
+    private static final Comparator<Rollup> BY_KEY = Comparator.comparing(Rollup::getStation).thenComparing(Rollup::getPeriod);
+
+    private final RollupRepository repository;
+    private final CachedQueries queries;
+
+    public RollupService(RollupRepository repository, DatasetVersion version, DbLimiter limiter, Shards shards,
+                         @Value("${count.cache.max-entries:10000}") int maxCounts,
+                         @Value("${stats.cache.max-entries:10000}") int maxPages,
+                         @Value("${stats.cache.max-rows:100000}") long maxRows) {
+        this.repository = repository;
+        this.queries = new CachedQueries(limiter, shards, version::getStats, maxCounts, maxPages, maxRows);
+    }
+
+    // the page of the level, for one station when given, with its total from the count cache
+    public Page<Rollup> findAll(Rollup.Level level, String station, Pageable paging) {
+        Pageable sorted = sorted(paging);
+        return queries.findAll(new PageKey(level, station, sorted), station, sorted, KEY_ORDER, BY_KEY,
+                p -> repository.findSlice(matching(level, station), p), () -> repository.count(matching(level, station)));
+    }
+
+    // the page, without a total
+    public Slice<Rollup> findSlice(Rollup.Level level, String station, Pageable paging) {
+        Pageable sorted = sorted(paging);
+        return queries.findSlice(new PageKey(level, station, sorted), station, sorted, KEY_ORDER, BY_KEY,
+                p -> repository.findSlice(matching(level, station), p));
+    }
+
+    public long count(Rollup.Level level, String station) {
+        return queries.count(new CountKey(level, station), station, () -> repository.count(matching(level, station)));
+    }
+
+    // always in (station, period) order
+    private static Pageable sorted(Pageable paging) {
+        return PageRequest.of(paging.getPageNumber(), paging.getPageSize(), KEY_ORDER);
+    }
+
+    // the level's rows, of the station when not null
+    private static Specification<Rollup> matching(Rollup.Level level, String station) {
+        return (root, query, cb) -> cb.and(
+                cb.equal(root.get("level"), level),
+                station == null ? cb.conjunction() : cb.equal(root.get("station"), station)
+        );
+    }
+}
@@ -0,0 +1,75 @@
+package corteva.weather.core;
+
+import com.zaxxer.hikari.*;
+import lombok.extern.slf4j.*;
+import org.flywaydb.core.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.boot.autoconfigure.condition.*;
+import org.springframework.boot.autoconfigure.flyway.*;
+import org.springframework.boot.autoconfigure.jdbc.*;
+import org.springframework.boot.context.properties.bind.*;
+import org.springframework.context.annotation.*;
+import org.springframework.core.env.*;
+import org.springframework.jdbc.datasource.lookup.*;
+
+import javax.sql.*;
+import java.util.*;
+
+/**
+ * Only active when `shards.urls` lists the shard databases.
+ * Replaces the single datasource with one that routes each connection
+ * to the shard the calling thread is on (see Shards), using the usual
+ * `spring.datasource` username, password & driver for every shard,
+ * with each shard's pool set up from `spring.datasource.hikari` like the
+ * single datasource would be, and runs the Flyway migrations on each of them.
+ */
+@Configuration
+@ConditionalOnProperty("shards.urls")
+@Slf4j
+public class ShardingConfig {
+
+    static class ShardRoutingDataSource extends AbstractRoutingDataSource {
+        @Override
+        protected Object determineCurrentLookupKey() {
+            return Shards.current();
+        }
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties properties, Environment environment, @Value("${shards.urls}") String[] urls) {
+        Binder binder = Binder.get(environment);
+        Map<Object, Object> shards = new HashMap<>();
+        for (int i = 0; i < urls.length; i++) {
+            HikariDataSource shard = pool(properties, binder, urls[i].trim());
+            shard.setPoolName("shard-" + i);
+            shards.put(i, shard);
+        }
+        log.info(String.format("sharding stations across %d databases", shards.size()));
+
+        ShardRoutingDataSource dataSource = new ShardRoutingDataSource();
+        dataSource.setTargetDataSources(shards);
+        dataSource.setDefaultTargetDataSource(shards.get(0));
+        dataSource.setLenientFallback(false);
+        return dataSource;
+    }
+
+    // a pool for the url, set up from spring.datasource & spring.datasource.hikari like the single datasource would be
+    static HikariDataSource pool(DataSourceProperties properties, Binder binder, String url) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        return pool;
+    }
+
+    // the same migrations, against every shard in turn
+    @Bean
+    public FlywayMigrationStrategy migrateEveryShard(DataSource dataSource) {
+        return flyway -> ((AbstractRoutingDataSource) dataSource).getResolvedDataSources().forEach((shard, target) -> {
+            log.info(String.format("migrating shard %s", shard));
+            Flyway.configure().configuration(flyway.getConfiguration()).dataSource(target).load().migrate();
+        });
+    }
+}
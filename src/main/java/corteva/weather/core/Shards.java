@@ -0,0 +1,177 @@
+package corteva.weather.core;
+
+import jakarta.annotation.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.data.domain.*;
+import org.springframework.scheduling.concurrent.*;
+import org.springframework.stereotype.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+/**
+ * Stations are hash partitioned across the databases in `shards.urls`
+ * (see ShardingConfig); without it there's a single shard, the usual
+ * `spring.datasource`, and everything here runs inline.
+ * The shard a thread works on is held in a thread local, which the
+ * routing DataSource reads whenever a connection is taken, so code
+ * wraps its db calls in on/forStation/onEach rather than choosing
+ * a repository per shard.
+ */
+@Component
+public class Shards {
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private final List<String> urls; // empty without shards.urls
+    private final int count;
+    private final int maxMergedRows; // rows each shard may return for one merged page
+    private final ExecutorService scatter; // runs onEach in parallel, null with a single shard
+
+    public Shards(@Value("${shards.urls:}") String[] urls,
+                  @Value("${shards.max-merged-rows:10000}") int maxMergedRows) {
+        this.urls = Arrays.stream(urls).map(String::trim).filter(url -> !url.isEmpty()).toList();
+        this.maxMergedRows = maxMergedRows;
+        this.count = Math.max(1, this.urls.size());
+        if (count > 1) {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("shard-");
+            threadFactory.setDaemon(true);
+            this.scatter = Executors.newCachedThreadPool(threadFactory);
+        } else {
+            this.scatter = null;
+        }
+    }
+
+    // the shard the current thread works on, 0 when not set
+    static int current() {
+        Integer shard = CURRENT.get();
+        return shard == null ? 0 : shard;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    // the shard's jdbc url, or null when there is just the usual spring.datasource
+    public String getUrl(int shard) {
+        return urls.isEmpty() ? null : urls.get(shard);
+    }
+
+    public boolean isSharded() {
+        return count > 1;
+    }
+
+    // String.hashCode is fixed by the spec, so stations stay on their shard across restarts
+    public int shardOf(String station) {
+        return station == null ? 0 : Math.floorMod(station.hashCode(), count);
+    }
+
+    public <T> T on(int shard, Supplier<T> call) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return call.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    public void run(int shard, Runnable call) {
+        on(shard, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    // on the station's shard, or the first one when there is no station
+    public <T> T forStation(String station, Supplier<T> call) {
+        return on(shardOf(station), call);
+    }
+
+    public void runForStation(String station, Runnable call) {
+        run(shardOf(station), call);
+    }
+
+    /**
+     * Scatter: run the call on every shard, in parallel when there are
+     * several, and gather the results in shard order.
+     */
+    public <T> List<T> onEach(Supplier<T> call) {
+        if (scatter == null) {
+            return List.of(on(0, call));
+        }
+        List<Future<T>> futures = new ArrayList<>(count);
+        for (int shard = 0; shard < count; shard++) {
+            int s = shard;
+            futures.add(scatter.submit(() -> on(s, call)));
+        }
+        List<T> results = new ArrayList<>(count);
+        for (Future<T> future : futures) {
+            results.add(join(future));
+        }
+        return results;
+    }
+
+    public void runOnEach(Runnable call) {
+        onEach(() -> {
+            call.run();
+            return null;
+        });
+    }
+
+    /**
+     * The page each shard has to return for its rows to be merged into
+     * the given page: everything up to the end of it, from the start.
+     *
+     * @throws PageTooDeepException if that is more than `shards.max-merged-rows`
+     */
+    public Pageable firstRows(Pageable paging, Sort sort) {
+        long rows = paging.getOffset() + paging.getPageSize();
+        if (rows > maxMergedRows) {
+            throw new PageTooDeepException(String.format(
+                    "page ending at row %,d needs more than %,d rows from each shard", rows, maxMergedRows));
+        }
+        return PageRequest.of(0, (int) rows, sort);
+    }
+
+    /**
+     * Gather: merge each shard's firstRows into the requested page.
+     */
+    public static <T> Slice<T> merge(List<Slice<T>> slices, Comparator<? super T> order, Pageable paging) {
+        List<T> rows = new ArrayList<>();
+        boolean more = false; // some shard has rows past the end of the page
+        for (Slice<T> slice : slices) {
+            rows.addAll(slice.getContent());
+            more |= slice.hasNext();
+        }
+        rows.sort(order);
+
+        long end = paging.getOffset() + paging.getPageSize();
+        int from = (int) Math.min(rows.size(), paging.getOffset());
+        int to = (int) Math.min(rows.size(), end);
+        return new SliceImpl<>(new ArrayList<>(rows.subList(from, to)), paging, more || rows.size() > end);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scatter != null) scatter.shutdownNow();
+    }
+
+    // the result, rethrowing a failed shard's exception as is
+    private static <T> T join(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted waiting for a shard", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            if (e.getCause() instanceof Error err) throw err;
+            throw new IllegalStateException("shard call failed", e.getCause());
+        }
+    }
+}
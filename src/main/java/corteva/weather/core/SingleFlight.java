@@ -0,0 +1,45 @@
+package corteva.weather.core;
+
+import java.util.concurrent.*;
+import java.util.function.*;
+
+/**
+ * Coalesces identical concurrent calls: while a call for a key is in
+ * flight, other callers with an equal key wait for it and share its
+ * result (or its exception) instead of running their own.
+ * Nothing is kept once the call completes, so this is not a cache.
+ */
+public class SingleFlight<K> {
+    private final ConcurrentMap<K, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public <V> V run(K key, Supplier<V> call) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(key, mine);
+        if (leader != null) {
+            return (V) join(leader);
+        }
+
+        try {
+            V value = call.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    // the leader's result, rethrowing its exception as is
+    private static Object join(CompletableFuture<Object> leader) {
+        try {
+            return leader.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            if (e.getCause() instanceof Error err) throw err;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package corteva.weather.core;
+
+import java.time.*;
+import java.util.*;
+
+/**
+ * One station's measurements as parallel primitive columns, sorted by
+ * epoch day. Temps are kept as shorts (tenths of a C always fit), precip
+ * as ints, and nulls as the column type's MIN_VALUE.
+ * Immutable once built, so it can be shared between readers.
+ */
+final class StationSeries {
+    static final short NULL_SHORT = Short.MIN_VALUE;
+    static final int NULL_INT = Integer.MIN_VALUE;
+
+    private final String station;
+    private final int[] days;
+    private final short[] maxTemps;
+    private final short[] minTemps;
+    private final int[] precips;
+
+    private StationSeries(String station, int[] days, short[] maxTemps, short[] minTemps, int[] precips) {
+        this.station = station;
+        this.days = days;
+        this.maxTemps = maxTemps;
+        this.minTemps = minTemps;
+        this.precips = precips;
+    }
+
+    String getStation() {
+        return station;
+    }
+
+    int size() {
+        return days.length;
+    }
+
+    long getDay(int i) {
+        return days[i];
+    }
+
+    // index of the first day >= epochDay
+    int lowerBound(long epochDay) {
+        if (epochDay <= Integer.MIN_VALUE) return 0;
+        if (epochDay > Integer.MAX_VALUE) return days.length;
+        int i = Arrays.binarySearch(days, (int) epochDay);
+        return i >= 0 ? i : -i - 1;
+    }
+
+    // index of the first day > epochDay
+    int upperBound(long epochDay) {
+        return epochDay == Long.MAX_VALUE ? days.length : lowerBound(epochDay + 1);
+    }
+
+    Integer getMaxTemp(int i) {
+        return maxTemps[i] == NULL_SHORT ? null : (int) maxTemps[i];
+    }
+
+    Integer getMinTemp(int i) {
+        return minTemps[i] == NULL_SHORT ? null : (int) minTemps[i];
+    }
+
+    Integer getTotalPrecip(int i) {
+        return precips[i] == NULL_INT ? null : precips[i];
+    }
+
+    short rawMaxTemp(int i) {
+        return maxTemps[i];
+    }
+
+    short rawMinTemp(int i) {
+        return minTemps[i];
+    }
+
+    int rawTotalPrecip(int i) {
+        return precips[i];
+    }
+
+    Measurement toMeasurement(int i) {
+        return new Measurement(station, LocalDate.ofEpochDay(days[i]), getMinTemp(i), getMaxTemp(i), getTotalPrecip(i));
+    }
+
+    /**
+     * Collects rows, which must arrive in ascending day order.
+     */
+    static final class Builder {
+        private final String station;
+        private int[] days = new int[512];
+        private short[] maxTemps = new short[512];
+        private short[] minTemps = new short[512];
+        private int[] precips = new int[512];
+        private int size;
+
+        Builder(String station) {
+            this.station = station;
+        }
+
+        String getStation() {
+            return station;
+        }
+
+        // values equal to NULL_INT are nulls
+        void add(long epochDay, int maxTemp, int minTemp, int totalPrecip) {
+            if (size == days.length) {
+                int capacity = size * 2;
+                days = Arrays.copyOf(days, capacity);
+                maxTemps = Arrays.copyOf(maxTemps, capacity);
+                minTemps = Arrays.copyOf(minTemps, capacity);
+                precips = Arrays.copyOf(precips, capacity);
+            }
+            days[size] = Math.toIntExact(epochDay);
+            maxTemps[size] = toShort(maxTemp);
+            minTemps[size] = toShort(minTemp);
+            precips[size] = totalPrecip;
+            size++;
+        }
+
+        StationSeries build() {
+            return new StationSeries(station, Arrays.copyOf(days, size),
+                    Arrays.copyOf(maxTemps, size), Arrays.copyOf(minTemps, size), Arrays.copyOf(precips, size));
+        }
+
+        private short toShort(int value) {
+            if (value == NULL_INT) return NULL_SHORT;
+            if (value <= NULL_SHORT || value > Short.MAX_VALUE) {
+                throw new IllegalStateException(String.format("temp out of range: station=%s, value=%d", station, value));
+            }
+            return (short) value;
+        }
+    }
+}
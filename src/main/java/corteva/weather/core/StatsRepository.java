@@ -5,28 +5,51 @@ import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.*;
 import org.springframework.transaction.annotation.*;
 
+import java.time.*;
+
 /**
  * handles persistence & paging + sorting,
  * just like it says on the tin.
  * Also the summarization heavy-lifting is
- * handled here using SQL.
+ * handled here using SQL, from the sums & counts
+ * that StatsTotalsRepository builds.
  * This has several MySQL specific functions
  * so changing db's would need to address this.
  */
-public interface StatsRepository extends PagingAndSortingRepository<Stats, StatsId>, ListCrudRepository<Stats, StatsId> {
+public interface StatsRepository extends PagingAndSortingRepository<Stats, StatsId>, ListCrudRepository<Stats, StatsId>, StatsRepositoryCustom {
+    // a double average, same as AVG(CAST(x AS FLOAT)) over the measurements, see StatsTotals.toStats
+    String AVERAGES = "ROUND(CAST(t.sum_max_temp AS DOUBLE) / NULLIF(t.count_max_temp, 0) / 10.0, 1) AS avg_max_temp, " +
+            "ROUND(CAST(t.sum_min_temp AS DOUBLE) / NULLIF(t.count_min_temp, 0) / 10.0, 1) AS avg_min_temp, " +
+            "ROUND(CAST(t.sum_precip AS DOUBLE) / NULLIF(t.count_precip, 0) / 10.0 / 10.0, 2) AS avg_precip ";
 
+    // the yearly averages, derived from the sums & counts in stats_totals
     @Modifying
     @Query(value = "INSERT INTO stats " +
             "(station, year, avg_max_temp, avg_min_temp, avg_precip) " +
-            "SELECT m.station, " +
-            "MAKEDATE(YEAR(m.date), 1) AS year, " +
-            "ROUND(AVG(CAST(m.max_temp AS FLOAT)) / 10.0, 1) AS avg_max_temp, " +
-            "ROUND(AVG(CAST(m.min_temp AS FLOAT)) / 10.0, 1) AS avg_min_temp, " +
-            "ROUND(AVG(CAST(m.total_precip AS FLOAT)) / 10.0 / 10.0, 2) AS avg_precip " +
-            "FROM measurements m " +
-            "GROUP BY m.station, MAKEDATE(YEAR(m.date), 1)", nativeQuery = true)
+            "SELECT t.station, t.year, " +
+            AVERAGES +
+            "FROM stats_totals t", nativeQuery = true)
     @Transactional
     void summarizeAll();
 
+    // same as summarizeAll, but only for one station's years in [from, to), replacing existing rows
+    @Modifying
+    @Query(value = "INSERT INTO stats " +
+            "(station, year, avg_max_temp, avg_min_temp, avg_precip) " +
+            "SELECT * FROM (" +
+            "SELECT t.station, t.year, " +
+            AVERAGES +
+            "FROM stats_totals t " +
+            "WHERE t.station = :station AND t.year >= :from AND t.year < :to" +
+            ") AS s " +
+            "ON DUPLICATE KEY UPDATE avg_max_temp = s.avg_max_temp, avg_min_temp = s.avg_min_temp, avg_precip = s.avg_precip", nativeQuery = true)
+    @Transactional
+    void summarizeStation(String station, LocalDate from, LocalDate to);
+
+    // are there any stats at all, reads one row rather than counting them all, station is never null
+    boolean existsByStationNotNull();
+
     <T> Page<Stats> findAll(Example<T> of, Pageable paging);
+
+    <T extends Stats> long count(Example<T> of);
 }
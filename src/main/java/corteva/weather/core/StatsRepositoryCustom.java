@@ -0,0 +1,13 @@
+package corteva.weather.core;
+
+import org.springframework.data.domain.*;
+import org.springframework.data.jpa.domain.*;
+
+/**
+ * Queries Spring Data can't derive, implemented in StatsRepositoryImpl.
+ */
+public interface StatsRepositoryCustom {
+
+    // a page of results, without counting all of them
+    Slice<Stats> findSlice(Specification<Stats> spec, Pageable paging);
+}
@@ -0,0 +1,18 @@
+package corteva.weather.core;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.*;
+import org.springframework.data.jpa.domain.*;
+
+/**
+ * Spring Data picks this up as the implementation of StatsRepositoryCustom.
+ */
+class StatsRepositoryImpl implements StatsRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Slice<Stats> findSlice(Specification<Stats> spec, Pageable paging) {
+        return Slices.find(entityManager, Stats.class, spec, paging);
+    }
+}
@@ -1,22 +1,58 @@
 package corteva.weather.core;
 
 import lombok.extern.slf4j.*;
+import org.springframework.beans.factory.annotation.*;
 import org.springframework.data.domain.*;
+import org.springframework.data.jpa.domain.*;
 import org.springframework.stereotype.*;
 
+import java.util.*;
+
 /**
  * Business logic goes here
+ * Stats only change when summarization runs, so pages are served from
+ * a read-through cache tagged with the stats generation, which
+ * summarization advances. Totals for paged results are cached the same way.
+ * Identical concurrent misses share one db call, db calls are limited
+ * and queries without a station go to every shard (see CachedQueries).
  */
 @Service
 @Slf4j
 public class StatsService {
+    private record PageKey(Stats example, Pageable paging) {
+    }
+
+    private static final Sort KEY_ORDER = Sort.by("station", "year");
+    private static final Comparator<Stats> BY_KEY = Comparator.comparing(Stats::getStation).thenComparing(Stats::getYear);
+
     private final StatsRepository repository;
+    private final CachedQueries queries;
 
-    public StatsService(StatsRepository repository) {
+    public StatsService(StatsRepository repository, DatasetVersion version, DbLimiter limiter, Shards shards,
+                        @Value("${count.cache.max-entries:10000}") int maxCounts,
+                        @Value("${stats.cache.max-entries:10000}") int maxPages,
+                        @Value("${stats.cache.max-rows:100000}") long maxRows) {
         this.repository = repository;
+        this.queries = new CachedQueries(limiter, shards, version::getStats, maxCounts, maxPages, maxRows);
     }
 
+    // the page, with its total from the count cache
     public Page<Stats> findAll(Stats example, Pageable paging) {
-        return repository.findAll(Example.of(example), paging);
+        return queries.findAll(new PageKey(example, paging), example.getStation(), paging, KEY_ORDER, BY_KEY,
+                p -> repository.findSlice(matching(example), p), () -> repository.count(Example.of(example)));
+    }
+
+    // the page, without a total
+    public Slice<Stats> findSlice(Stats example, Pageable paging) {
+        return queries.findSlice(new PageKey(example, paging), example.getStation(), paging, KEY_ORDER, BY_KEY,
+                p -> repository.findSlice(matching(example), p));
+    }
+
+    public long count(Stats example) {
+        return queries.count(example, example.getStation(), () -> repository.count(Example.of(example)));
+    }
+
+    private static Specification<Stats> matching(Stats example) {
+        return Slices.byExample(Example.of(example));
     }
 }
@@ -0,0 +1,72 @@
+package corteva.weather.core;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.*;
+import java.time.*;
+
+/**
+ * The running sums & counts behind a station's yearly stats.
+ * Keeping these means new rows can be folded into the stats without
+ * re-reading the year's measurements, since averages can't be merged
+ * but sums & counts can.
+ * Sums are in the units of the measurements, tenths of a C or mm.
+ */
+@Entity
+@Data
+@Table(name = "stats_totals")
+@IdClass(StatsId.class)
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StatsTotals implements Serializable {
+    @Id
+    private String station;
+    @Id
+    private LocalDate year;
+    private long sumMaxTemp;
+    private long countMaxTemp;
+    private long sumMinTemp;
+    private long countMinTemp;
+    private long sumPrecip;
+    private long countPrecip;
+
+    public StatsTotals(String station, LocalDate year) {
+        this.station = station;
+        this.year = year;
+    }
+
+    /**
+     * Add more values to the totals.
+     */
+    public void add(long sumMaxTemp, long countMaxTemp, long sumMinTemp, long countMinTemp, long sumPrecip, long countPrecip) {
+        this.sumMaxTemp += sumMaxTemp;
+        this.countMaxTemp += countMaxTemp;
+        this.sumMinTemp += sumMinTemp;
+        this.countMinTemp += countMinTemp;
+        this.sumPrecip += sumPrecip;
+        this.countPrecip += countPrecip;
+    }
+
+    /**
+     * The stats for these totals, rounded exactly like StatsRepository.summarizeAll,
+     * i.e. a double average, scaled, then MySQL's ROUND (rint) to 1 or 2 places.
+     */
+    public Stats toStats() {
+        return new Stats(
+                station,
+                year,
+                average(sumMinTemp, countMinTemp, 10.0, 10.0),
+                average(sumMaxTemp, countMaxTemp, 10.0, 10.0),
+                average(sumPrecip, countPrecip, 10.0 * 10.0, 100.0)
+        );
+    }
+
+    // average scaled down by divisor, rounded to 1/places, or null with nothing to average
+    static Float average(long sum, long count, double divisor, double places) {
+        if (count == 0) return null;
+        double value = (double) sum / (double) count / divisor;
+        return (float) (Math.rint(value * places) / places);
+    }
+}
@@ -0,0 +1,45 @@
+package corteva.weather.core;
+
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.*;
+import org.springframework.transaction.annotation.*;
+
+import java.time.*;
+
+/**
+ * handles persistence of the yearly totals,
+ * and builds them from the monthly rollups using SQL,
+ * so they never read the measurements themselves.
+ * This has several MySQL specific functions
+ * so changing db's would need to address this.
+ */
+public interface StatsTotalsRepository extends ListCrudRepository<StatsTotals, StatsId> {
+
+    @Modifying
+    @Query(value = "INSERT INTO stats_totals " +
+            "(station, year, sum_max_temp, count_max_temp, sum_min_temp, count_min_temp, sum_precip, count_precip) " +
+            "SELECT t.station, " +
+            "MAKEDATE(YEAR(t.period), 1) AS year, " +
+            RollupRepository.TOTALS +
+            "FROM rollups t " +
+            "WHERE t.level = 'MONTH' " +
+            "GROUP BY t.station, year", nativeQuery = true)
+    @Transactional
+    void summarizeAll();
+
+    // same as summarizeAll, but only for one station's months in [from, to), which should be whole years, replacing existing rows
+    @Modifying
+    @Query(value = "INSERT INTO stats_totals " +
+            "(station, year, sum_max_temp, count_max_temp, sum_min_temp, count_min_temp, sum_precip, count_precip) " +
+            "SELECT * FROM (" +
+            "SELECT t.station, " +
+            "MAKEDATE(YEAR(t.period), 1) AS year, " +
+            RollupRepository.TOTALS +
+            "FROM rollups t " +
+            "WHERE t.level = 'MONTH' AND t.station = :station AND t.period >= :from AND t.period < :to " +
+            "GROUP BY t.station, year" +
+            ") AS s " +
+            RollupRepository.REPLACE, nativeQuery = true)
+    @Transactional
+    void summarizeStation(String station, LocalDate from, LocalDate to);
+}
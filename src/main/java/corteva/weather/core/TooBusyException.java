@@ -0,0 +1,15 @@
+package corteva.weather.core;
+
+import org.springframework.http.*;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Thrown when a query can't get a db slot in time, so the
+ * request is shed with a 503 instead of piling onto the pool.
+ */
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE, reason = "too busy, try again")
+public class TooBusyException extends RuntimeException {
+    public TooBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,92 @@
+package corteva.weather.core;
+
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * A bounded, least recently used cache whose entries are tagged with the
+ * dataset generation they were computed for (see DatasetVersion).
+ * An entry from an older generation is never returned, and the first
+ * lookup with a newer generation drops everything cached before it, so
+ * advancing the generation invalidates the cache at once.
+ * It's bounded both by number of entries and by total weight, e.g. rows,
+ * so a few large pages can't crowd out the heap.
+ * Loading happens outside the lock, so two callers may both load the
+ * same missing key; the last one wins. A value is only cached if the
+ * generation is still the same once it has loaded, so results read while
+ * the data changed underneath them are returned but not kept.
+ */
+public class VersionedCache<K, V> {
+    private record Entry<V>(long generation, V value, long weight) {
+    }
+
+    private final Map<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final int maxEntries;
+    private final long maxWeight;
+    private final ToLongFunction<V> weigher;
+    private long weight; // total weight of the entries
+    private long generation; // newest generation seen
+
+    public VersionedCache(int maxEntries) {
+        this(maxEntries, Long.MAX_VALUE, v -> 1);
+    }
+
+    public VersionedCache(int maxEntries, long maxWeight, ToLongFunction<V> weigher) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    /**
+     * The cached value for the key & current generation, loading & caching it if needed.
+     */
+    public V get(K key, LongSupplier currentGeneration, Supplier<V> loader) {
+        long generation = currentGeneration.getAsLong();
+        synchronized (this) {
+            advanceTo(generation);
+            Entry<V> entry = entries.get(key);
+            if (entry != null && entry.generation() == generation) {
+                return entry.value();
+            }
+        }
+
+        V value = loader.get();
+        long valueWeight = weigher.applyAsLong(value);
+        synchronized (this) {
+            if (generation < this.generation || generation != currentGeneration.getAsLong() || valueWeight > maxWeight) {
+                return value; // stale by now, or too big to ever fit
+            }
+            Entry<V> replaced = entries.put(key, new Entry<>(generation, value, valueWeight));
+            if (replaced != null) weight -= replaced.weight();
+            weight += valueWeight;
+            evict();
+        }
+        return value;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long weight() {
+        return weight;
+    }
+
+    // drop everything from before the given generation
+    private void advanceTo(long newGeneration) {
+        if (newGeneration > generation) {
+            generation = newGeneration;
+            entries.clear();
+            weight = 0;
+        }
+    }
+
+    // remove least recently used entries until back within bounds
+    private void evict() {
+        Iterator<Entry<V>> eldest = entries.values().iterator();
+        while ((entries.size() > maxEntries || weight > maxWeight) && eldest.hasNext()) {
+            weight -= eldest.next().weight();
+            eldest.remove();
+        }
+    }
+}
@@ -4,13 +4,14 @@ import corteva.weather.core.*;
 import lombok.extern.slf4j.*;
 import org.apache.commons.lang3.time.*;
 import org.springframework.beans.factory.annotation.*;
+import org.springframework.scheduling.concurrent.*;
 import org.springframework.stereotype.*;
 
 import java.io.*;
 import java.nio.file.*;
-import java.time.*;
-import java.time.format.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 import java.util.stream.*;
 
 /**
@@ -18,37 +19,78 @@ import java.util.stream.*;
  * Will scan a directory  for txt files, processing each of them.
  * Duplicate items will not be imported.
  * Station & date must be unique.
- * Summarization can be triggered here as well, which will re-compute
- * all the stats bases on the current state.
+ * Summarization can be triggered here as well, see Summarizer. The
+ * import aggregates yearly sums & counts of each chunk it writes, so the
+ * summarizer knows which station-years changed and by how much.
+ * Station files are independent of each other, so they are imported in
+ * parallel by a pool of `bulk.import.threads` workers. Each worker streams
+ * its rows in `bulk.import.chunk-size` chunks to a shared pool of
+ * `bulk.import.writers` db writers, with at most `bulk.import.queue-depth`
+ * chunks per file in memory, so memory doesn't grow with file size.
+ * Each file's size, modified time and consumed offset are kept in the
+ * import manifest, so later runs skip unchanged files and only read
+ * the tail of files that have been appended to.
+ * A station's rows are written to its own shard, see Shards; the
+ * manifest stays on the first one.
  */
 @Service
 @Slf4j
 public class BulkImport {
     public static final int ONLY_CURRENT_DIRECTORY = 1;
-    private static final String NULL_TOKEN = "-9999";
-    private static final DateTimeFormatter localDateFormatter = DateTimeFormatter.ofPattern("yyyyMMdd");
+
     private final MeasurementService weatherDataService;
-    private final StatsRepository statsRepository;
-    private long totalInserted = 0; // how many inserts were done
-    private long fileInserted = 0; // how many inserts from the current file
-    private long fileRead = 0;  // home many lines did we read in the current file
-    private List<LocalDate> currentStationDates;
-    private List<Measurement> itemsToInsert; // list of models from the current file to be inserted
+    private final MeasurementBulkWriter bulkWriter;
+    private final Summarizer summarizer;
+    private final ImportManifestRepository manifestRepository;
+    private final ImportMetrics metrics;
+    private final DatasetVersion datasetVersion;
+    private final MeasurementStore measurementStore;
+    private final Shards shards;
+    private final LongAdder totalInserted = new LongAdder(); // how many inserts were done, across all workers
     @Value("${bulk.import.dir}")
     private Path bulkImportDir; // dir where we expect the import files to live
 
     @Value("${bulk.import.enabled}")
     private boolean enabled; // dir where we expect the import files to live
 
-    public BulkImport(MeasurementService weatherDataService, StatsRepository statsRepository) {
+    @Value("${bulk.import.threads:0}")
+    private int threads; // how many files to import at once, 0 means one per core
+
+    @Value("${bulk.import.writers:4}")
+    private int writers; // how many chunks may be written to the db at once
+
+    @Value("${bulk.import.chunk-size:5000}")
+    private int chunkSize; // rows per chunk handed to a writer
+
+    @Value("${bulk.import.queue-depth:4}")
+    private int queueDepth; // chunks per file being filled or waiting to be written
+
+    @Value("${bulk.import.write-mode:ignore}")
+    private MeasurementBulkWriter.Mode writeMode; // what to do with rows that are already in the db
+
+    @Value("${bulk.import.incremental:true}")
+    private boolean incremental; // use the manifest to skip unchanged files and read only appended lines
+
+    @Value("${bulk.import.settle-ms:60000}")
+    private long settleMs; // how long a file must be unmodified before an unterminated last line is taken as complete
+
+    public BulkImport(MeasurementService weatherDataService, MeasurementBulkWriter bulkWriter,
+                      Summarizer summarizer, ImportManifestRepository manifestRepository, ImportMetrics metrics,
+                      DatasetVersion datasetVersion, MeasurementStore measurementStore, Shards shards) {
         this.weatherDataService = weatherDataService;
-        this.statsRepository = statsRepository;
+        this.bulkWriter = bulkWriter;
+        this.summarizer = summarizer;
+        this.manifestRepository = manifestRepository;
+        this.metrics = metrics;
+        this.datasetVersion = datasetVersion;
+        this.measurementStore = measurementStore;
+        this.shards = shards;
     }
 
     /**
      * Main entry point, start the import process
      */
-    public void startImport() {
+    public synchronized void startImport() {
         if (!enabled) {
             log.info("bulk import disabled");
             return;
@@ -75,47 +117,148 @@ public class BulkImport {
         } catch (Throwable t) {
             log.error("import failed", t);
         } finally {
+            datasetVersion.advanceMeasurements();
             totalStopWatch.stop();
             log.info(String.format(
                     "complete: inserted %,d record%s, elapsed time: %s",
-                    totalInserted, (totalInserted != ONLY_CURRENT_DIRECTORY ? "s" : ""), totalStopWatch.formatTime()
+                    totalInserted.sum(), (totalInserted.sum() != ONLY_CURRENT_DIRECTORY ? "s" : ""), totalStopWatch.formatTime()
             ));
         }
     }
 
-    // scan the given directory and process all *.txt from it.
-    private void importFromDirectory(Path aDir) throws IOException {
-        Collection<Path> inputFiles = scanForFilesToImport(aDir);
+    /**
+     * Import just the given files, reload their stations into the
+     * measurement store and summarize what changed,
+     * used by the ImportWatcher to pick up new data while the app is running.
+     */
+    public synchronized void importChanged(Collection<Path> files) {
+        if (!enabled) {
+            log.info("bulk import disabled");
+            return;
+        }
+
+        StopWatch stopWatch = StopWatch.createStarted();
+        try {
+            importFiles(files);
+            datasetVersion.advanceMeasurements();
+            measurementStore.refresh(files.stream().map(this::toStation).filter(Objects::nonNull).collect(Collectors.toSet()));
+            summarizeImported();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable t) {
+            log.error("import failed", t);
+        } finally {
+            stopWatch.stop();
+            log.info(String.format(
+                    "changes imported: %,d file%s, inserted %,d record%s, elapsed time: %s",
+                    files.size(), files.size() != 1 ? "s" : "",
+                    totalInserted.sum(), totalInserted.sum() != 1 ? "s" : "", stopWatch.formatTime()
+            ));
+        }
+    }
+
+    /**
+     * The files whose last import left part of them unread, an unterminated
+     * last line held back until the file has been unmodified for
+     * `bulk.import.settle-ms`, so they are to be imported again once it has.
+     */
+    public Set<Path> heldBack(Collection<Path> files) {
+        Map<String, Path> byKey = new HashMap<>();
+        files.forEach(path -> byKey.put(manifestKey(path), path));
+        return manifestRepository.findAllById(byKey.keySet()).stream()
+                .filter(ImportManifest::isPartlyRead)
+                .map(manifest -> byKey.get(manifest.getPath()))
+                .collect(Collectors.toSet());
+    }
+
+    public long getSettleMs() {
+        return settleMs;
+    }
+
+    // scan the given directory and process all *.txt from it
+    private void importFromDirectory(Path aDir) throws IOException, InterruptedException {
+        importFiles(scanForFilesToImport(aDir));
+    }
+
+    // import the given files, one worker per file
+    private void importFiles(Collection<Path> inputFiles) throws InterruptedException {
+        if (manifestRepository.existsBySummarizedFalse()) {
+            // an earlier import stopped before its changes were summarized, and they are no longer known
+            log.info("earlier import was never summarized, the next summarize is a full one");
+            summarizer.requireFull();
+        }
 
-        int idx = 0;
         int totalFilesToImport = inputFiles.size();
         log.debug(String.format("%,d files found", totalFilesToImport));
-        totalInserted = 0;
-        for (Path currentPath : inputFiles) {
-            StopWatch fileStopWatch = StopWatch.createStarted();
-            fileInserted = 0;
-            fileRead = 0;
-            idx++;
+        totalInserted.reset();
 
-            importFile(currentPath);
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        int writerPoolSize = Math.max(1, writers);
+        AtomicInteger idx = new AtomicInteger();
+        log.debug(String.format("importing with %d threads, %d writers", poolSize, writerPoolSize));
 
-            fileStopWatch.stop();
-            log.info(String.format(
-                    "%3d/%-3d %s : read %,d\tinserted %,d\titems/sec %,.0f",
-                    idx, totalFilesToImport,
-                    currentPath.getFileName(),
-                    fileRead,
-                    fileInserted,
-                    ((double) fileRead / (double) fileStopWatch.getTime()) * 1000.0
-            ));
+        ExecutorService pool = Executors.newFixedThreadPool(poolSize, new CustomizableThreadFactory("bulk-import-"));
+        ExecutorService writerPool = Executors.newFixedThreadPool(writerPoolSize, new CustomizableThreadFactory("bulk-write-"));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Path currentPath : inputFiles) {
+                futures.add(pool.submit(() -> {
+                    importFileAndLog(currentPath, writerPool, idx, totalFilesToImport);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    log.error("file import failed", e.getCause());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+            awaitTermination(pool);
+            // chunks already handed to a writer are left to finish, rather than interrupted part way
+            writerPool.shutdown();
+            awaitTermination(writerPool);
         }
     }
 
+    // wait for the pool's tasks to end, keeping any interrupt for the caller
+    private static void awaitTermination(ExecutorService pool) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (pool.awaitTermination(1, TimeUnit.MINUTES)) break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    // import a single file and log how it went
+    private void importFileAndLog(Path currentPath, Executor writerPool, AtomicInteger idx, int totalFilesToImport) throws IOException, InterruptedException {
+        StopWatch fileStopWatch = StopWatch.createStarted();
+        StationFile file = new StationFile(currentPath, metrics);
+
+        importFile(file, writerPool);
+
+        fileStopWatch.stop();
+        metrics.fileImported(fileStopWatch.getNanoTime());
+        log.info(String.format(
+                "%3d/%-3d %s : read %,d\tinserted %,d\titems/sec %,.0f",
+                idx.incrementAndGet(), totalFilesToImport,
+                currentPath.getFileName(),
+                file.read,
+                file.inserted,
+                ((double) file.read / (double) Math.max(1, fileStopWatch.getTime())) * 1000.0
+        ));
+    }
+
     // read lines from the given file
-    private void importFile(Path path) throws IOException {
+    private void importFile(StationFile file, Executor writerPool) throws IOException, InterruptedException {
+        Path path = file.path;
         log.debug(String.format("import from file: %s", path.toString()));
-        // reset/empty the list of models to store in db
-        itemsToInsert = new ArrayList<>();
 
         String station = toStation(path);
         if (station == null) {
@@ -124,40 +267,65 @@ public class BulkImport {
         }
         log.debug(String.format("station=%s", station));
 
-        currentStationDates = lookupDatesForStation(station);
-        log.debug(String.format("%,d initial existing dates for station %s", currentStationDates.size(), station));
-
-        try (BufferedReader bufferedReader = new BufferedReader(new FileReader(path.toFile()))) {
-            for (String line; (line = bufferedReader.readLine()) != null; ) {
-                fileRead++;
-                processLine(station, line);
+        String key = manifestKey(path);
+        long size = Files.size(path);
+        long modified = Files.getLastModifiedTime(path).toMillis();
+        long offset = 0;
+        ImportManifest manifest = incremental ? manifestRepository.findById(key).orElse(null) : null;
+        if (manifest != null) {
+            if (manifest.isUnchanged(size, modified)) {
+                log.debug(String.format("%s is unchanged, skipping", path.getFileName()));
+                return;
+            }
+            if (manifest.isAppendedTo(path, size)) {
+                offset = manifest.getLastOffset();
+                log.debug(String.format("%s was appended to, reading from byte %,d", path.getFileName(), offset));
             }
+        }
 
-            log.debug(String.format("storing %,d items", itemsToInsert.size()));
-            weatherDataService.createAll(itemsToInsert);
+        if (writeMode == MeasurementBulkWriter.Mode.UPSERT) {
+            // existing rows are to be overwritten, so only dates repeated within this read are dropped,
+            // their years count as changed and get summarized again from the measurements
+            file.currentStationDates = new EpochDaySet();
+        } else {
+            file.currentStationDates = weatherDataService.findDatesByStation(station);
+            log.debug(String.format("%,d initial existing dates for station %s", file.currentStationDates.size(), station));
         }
-    }
 
-    // convert the String into a model and store it
-    private void processLine(String station, String line) {
-        Measurement model = toModel(line);
-        if (model == null) {
-            log.debug("model was null");
-            return;
+        file.itemsToInsert = new WritePipeline(station, chunkSize, queueDepth, writerPool,
+                batch -> shards.runForStation(station, () -> {
+                    metrics.timeWrite(() -> bulkWriter.write(batch, writeMode));
+                    // a chunk commits whole, recorded once it has, so what was committed is summarized even if a later chunk fails
+                    summarizer.recordChanges(station, YearlyTotals.of(batch));
+                }));
+        long consumed;
+        try {
+            // a line without a terminator is only read once the file has stopped changing, it may be half written
+            consumed = file.parse(offset, System.currentTimeMillis() - modified >= settleMs);
+        } catch (IOException | RuntimeException e) {
+            // still write what was read, the manifest isn't saved so the rest is read again next time
+            try {
+                file.itemsToInsert.finish();
+            } catch (InterruptedException f) {
+                Thread.currentThread().interrupt();
+                e.addSuppressed(f);
+            } catch (RuntimeException f) {
+                e.addSuppressed(f);
+            }
+            throw e;
         }
 
-        // station value wasn't in the file, it is derived from the filename
-        model.setStation(station);
-        addToCreateList(model);
+        log.debug(String.format("storing the last of %,d items", file.inserted));
+        file.itemsToInsert.finish();
+        totalInserted.add(file.inserted);
+
+        // size & modified are from before the read, so a file that grew meanwhile is picked up next time
+        manifestRepository.save(new ImportManifest(key, size, modified, ImportManifest.hash(path, consumed), consumed, false));
     }
 
-    // fetch all the current date values for the station from the db
-    private List<LocalDate> lookupDatesForStation(String station) {
-        return weatherDataService
-                .findAllByStation(station)
-                .stream()
-                .map(Measurement::getDate)
-                .collect(Collectors.toList());
+    // the manifest is keyed on the file's absolute path
+    private static String manifestKey(Path path) {
+        return path.toAbsolutePath().normalize().toString();
     }
 
     // strip the ".txt" file extension off of the path's filename to determine the station value
@@ -173,92 +341,80 @@ public class BulkImport {
         return filename.substring(0, idx);
     }
 
-    // convert the String line into a model
-    private Measurement toModel(String line) {
-        if (line == null) {
-            log.debug("line was null");
-            return null;
-        }
-        if (line.length() < ONLY_CURRENT_DIRECTORY) {
-            log.debug("line was empty");
-            return null;
-        }
-
-        String[] parts = line.split("\t");
-        if (parts == null) {
-            log.debug("line had no delimited parts");
-            return null;
-        }
-        if (parts.length != 4) {
-            log.debug("line had wrong number of delimited parts");
-            return null;
-        }
-
-        Measurement model = new Measurement();
-
-        model.setDate(toLocalDate(parts[0]));
-        model.setMaxTemp(toInt(parts[ONLY_CURRENT_DIRECTORY]));
-        model.setMinTemp(toInt(parts[2]));
-        model.setTotalPrecip(toInt(parts[3]));
-
-        if (log.isTraceEnabled()) {
-            log.trace(String.format("line text[%s] resulted in model [%s]", line, model));
+    // find txt files in the given directory that are a readable, a directory and ends in ".txt"
+    private Collection<Path> scanForFilesToImport(Path path) throws IOException {
+        try (Stream<Path> files = Files.walk(path, ONLY_CURRENT_DIRECTORY)) {
+            return files.filter(BulkImport::isImportFile).collect(Collectors.toList());
         }
-
-        return model;
     }
 
-    // should we add the model to the list for later persistence
-    private void addToCreateList(Measurement model) {
-        boolean exists = currentStationDates.contains(model.getDate());
-        if (!exists) {
-            itemsToInsert.add(model);  // list to save later
-            currentStationDates.add(model.getDate()); // save this date to prevent dupes
-            totalInserted++;
-            fileInserted++;
-        }
+    // is this a file we can import: readable, a regular file and ends in ".txt"
+    static boolean isImportFile(Path path) {
+        return Files.isRegularFile(path) && Files.isReadable(path) && hasExtension(path, "txt");
     }
 
-    // convert a string in temperature format, into an Integer
-    private Integer toInt(String s) {
-        if (s == null) return null;
-        s = s.trim();
-        if (hasNullToken(s)) return null;
-        return Integer.parseInt(s);
+    // grab the file extension (any text after the last . in the filename)
+    private static boolean hasExtension(Path path, String extension) {
+        return path.getFileName().toString().endsWith(extension);
     }
 
-    // some fields represent a null with a specific string value
-    private boolean hasNullToken(String s) {
-        return NULL_TOKEN.equals(s);
-    }
+    public synchronized void summarize() {
+        if (!enabled) return;
 
-    // convert a string to a LocalDate
-    private LocalDate toLocalDate(String s) {
-        if (s == null) return null;
-        s = s.trim();
-        return LocalDate.parse(s, localDateFormatter);
+        summarizeImported();
     }
 
-    // find txt files in the given directory that are a readable, a directory and ends in ".txt"
-    private Collection<Path> scanForFilesToImport(Path path) throws IOException {
-        return Files.walk(path, ONLY_CURRENT_DIRECTORY)
-                .filter(Files::isRegularFile)
-                .filter(Files::isReadable)
-                .filter(f -> hasExtension(f, "txt"))
-                .collect(Collectors.toList());
+    // bring the stats up to date and note in the manifest that every import so far is summarized
+    private void summarizeImported() {
+        // upserted rows may have replaced existing ones, so what was aggregated isn't purely new
+        summarizer.summarize(writeMode != MeasurementBulkWriter.Mode.UPSERT);
+        manifestRepository.markSummarized();
     }
 
-    // grab the file extension (any text after the last . in the filename)
-    private boolean hasExtension(Path path, String extension) {
-        return path.getFileName().toString().endsWith(extension);
-    }
+    /**
+     * State for a single file being imported.
+     * Each worker owns its own instance, so nothing here needs to be thread-safe.
+     */
+    private static class StationFile implements StationFileParser.Handler {
+        private final Path path;
+        private final StationFileParser parser = new StationFileParser();
+        private final ImportMetrics metrics;
+        private WritePipeline itemsToInsert; // streams rows from this file to the db
+        private EpochDaySet currentStationDates;
+        private long inserted = 0; // how many inserts from this file
+        private long read = 0;  // how many lines did we read in this file
+
+        StationFile(Path path, ImportMetrics metrics) {
+            this.path = path;
+            this.metrics = metrics;
+        }
 
-    public void summarize() {
-        if (!enabled) return;
+        // parse the file from the given offset, returning the offset after the last line parsed
+        long parse(long offset, boolean finished) throws IOException {
+            long consumed = parser.parse(path, offset, finished, this);
+            read = parser.getLines();
+            return consumed;
+        }
 
-        log.info("summarize started");
-        statsRepository.deleteAll();
-        statsRepository.summarizeAll();
-        log.info("summarize complete");
+        @Override
+        public void record(long epochDay, int maxTemp, int minTemp, int totalPrecip) {
+            metrics.lineRead();
+            // should we add the row to the batch for later persistence, adding the date prevents dupes
+            if (currentStationDates.add(epochDay)) {
+                itemsToInsert.add(epochDay, maxTemp, minTemp, totalPrecip);
+                inserted++;
+            } else {
+                metrics.duplicateSkipped();
+            }
+        }
+
+        @Override
+        public void reject(StationFileParser.Reject reason, long lineNumber) {
+            metrics.lineRead();
+            metrics.rejected(reason);
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("%s line %,d rejected: %s", path.getFileName(), lineNumber, reason));
+            }
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package corteva.weather.etl;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * The (station, year) groups that imports have added rows to since
+ * the last summarization, so only those need summarizing again,
+ * along with the sums & counts of the rows that were added.
+ * Safe to add to from several import workers at once.
+ */
+class ChangedYears {
+    private final Map<String, YearlyTotals> totals = new ConcurrentHashMap<>();
+
+    void add(String station, YearlyTotals stationTotals) {
+        if (stationTotals.getMonths().isEmpty()) return;
+        totals.merge(station, stationTotals, (existing, added) -> {
+            existing.merge(added);
+            return existing;
+        });
+    }
+
+    /**
+     * Take every change recorded so far, leaving this empty.
+     */
+    Map<String, YearlyTotals> drain() {
+        Map<String, YearlyTotals> drained = new TreeMap<>();
+        for (String station : totals.keySet()) {
+            YearlyTotals stationTotals = totals.remove(station);
+            if (stationTotals != null) drained.put(station, stationTotals);
+        }
+        return drained;
+    }
+}
@@ -0,0 +1,89 @@
+package corteva.weather.etl;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.zip.*;
+
+/**
+ * What we know about an import file from the last time it was imported.
+ * Lets the import skip files that haven't changed, and only read the
+ * lines appended to files that have grown.
+ * The hash is a fingerprint of the consumed part of the file, its first
+ * and last few KB, which is enough to tell an append from a rewrite
+ * without reading the whole file again.
+ * A manifest is saved as not yet summarized, and marked once the stats
+ * have caught up, so an import whose summarization never ran is noticed
+ * by the next one.
+ */
+@Entity
+@Data
+@Table(name = "import_manifest")
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportManifest implements Serializable {
+    private static final int HASH_WINDOW = 4096;
+
+    @Id
+    @Column(length = 768)
+    private String path;
+    private long size; // file size in bytes when it was imported
+    private long modified; // file last modified time, epoch millis
+    private long contentHash; // fingerprint of the first lastOffset bytes
+    private long lastOffset; // bytes of the file that have been imported
+    private boolean summarized; // have the stats caught up with this import of the file
+
+    /**
+     * Is the file exactly as it was when it was imported, with nothing
+     * left unread, like an unterminated last line?
+     */
+    public boolean isUnchanged(long currentSize, long currentModified) {
+        return size == currentSize && modified == currentModified && !isPartlyRead();
+    }
+
+    /**
+     * Was part of the file left unread, an unterminated last line held
+     * back until the file settles?
+     */
+    public boolean isPartlyRead() {
+        return lastOffset < size;
+    }
+
+    /**
+     * Can the file be picked up from lastOffset, i.e. it has only been appended to?
+     */
+    public boolean isAppendedTo(Path file, long currentSize) throws IOException {
+        return currentSize >= lastOffset && contentHash == hash(file, lastOffset);
+    }
+
+    /**
+     * Fingerprint the first `length` bytes of a file.
+     */
+    public static long hash(Path file, long length) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(Long.hashCode(length));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            update(crc, channel, 0, Math.min(HASH_WINDOW, length));
+            if (length > HASH_WINDOW) {
+                long tailStart = Math.max(HASH_WINDOW, length - HASH_WINDOW);
+                update(crc, channel, tailStart, length - tailStart);
+            }
+        }
+        return crc.getValue();
+    }
+
+    // add the given range of the file to the checksum
+    private static void update(CRC32 crc, FileChannel channel, long position, long length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) break;
+        }
+        buffer.flip();
+        crc.update(buffer);
+    }
+}
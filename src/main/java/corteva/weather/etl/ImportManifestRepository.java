@@ -0,0 +1,21 @@
+package corteva.weather.etl;
+
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.*;
+import org.springframework.transaction.annotation.*;
+
+/**
+ * handles persistence of the import manifest,
+ * keyed on the file's path.
+ */
+public interface ImportManifestRepository extends ListCrudRepository<ImportManifest, String> {
+
+    // was a file imported without its changes being summarized afterwards
+    boolean existsBySummarizedFalse();
+
+    // every import so far has been summarized
+    @Modifying
+    @Query(value = "UPDATE import_manifest SET summarized = TRUE WHERE summarized = FALSE", nativeQuery = true)
+    @Transactional
+    void markSummarized();
+}
@@ -0,0 +1,87 @@
+package corteva.weather.etl;
+
+import io.micrometer.core.instrument.*;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+/**
+ * Micrometer meters for the import, exposed via /actuator/metrics
+ * and /actuator/prometheus while an import is running.
+ * Rates (lines/s, records/s) come from the counters, so they can
+ * tell whether a slow import is parse, dedup or db bound.
+ */
+@Component
+public class ImportMetrics {
+    private final Counter linesRead;
+    private final Counter recordsInserted;
+    private final Counter duplicatesSkipped;
+    private final Map<StationFileParser.Reject, Counter> rejects = new EnumMap<>(StationFileParser.Reject.class);
+    private final Timer batchWrite;
+    private final Timer fileImport;
+    private final MeterRegistry registry;
+
+    public ImportMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        linesRead = Counter.builder("weather.import.lines")
+                .description("lines read from import files")
+                .register(registry);
+        recordsInserted = Counter.builder("weather.import.inserted")
+                .description("rows the db reports as written, skipped duplicates don't count")
+                .register(registry);
+        duplicatesSkipped = Counter.builder("weather.import.duplicates")
+                .description("records skipped because the station already had the date")
+                .register(registry);
+        for (StationFileParser.Reject reason : StationFileParser.Reject.values()) {
+            rejects.put(reason, Counter.builder("weather.import.rejects")
+                    .description("lines that could not be parsed")
+                    .tag("reason", reason.name().toLowerCase())
+                    .register(registry));
+        }
+        batchWrite = Timer.builder("weather.import.batch.write")
+                .description("time to write one chunk of records")
+                .publishPercentileHistogram()
+                .register(registry);
+        fileImport = Timer.builder("weather.import.file")
+                .description("time to import one file")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    void lineRead() {
+        linesRead.increment();
+    }
+
+    void duplicateSkipped() {
+        duplicatesSkipped.increment();
+    }
+
+    void rejected(StationFileParser.Reject reason) {
+        rejects.get(reason).increment();
+    }
+
+    void fileImported(long nanos) {
+        fileImport.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    // write a chunk, timing it and counting the rows it affected
+    int timeWrite(IntSupplier write) {
+        long start = System.nanoTime();
+        int affected = write.getAsInt();
+        batchWrite.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        recordsInserted.increment(affected);
+        return affected;
+    }
+
+    // run a summarization, timing it by mode
+    void timeSummarize(Summarizer.Mode mode, Runnable summarize) {
+        Timer.builder("weather.summarize")
+                .description("time to bring the stats up to date")
+                .tag("mode", mode.name().toLowerCase())
+                .register(registry)
+                .record(summarize);
+    }
+}
@@ -0,0 +1,221 @@
+package corteva.weather.etl;
+
+import jakarta.annotation.*;
+import lombok.extern.slf4j.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.stereotype.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
+
+/**
+ * Watches the import directory and imports new or changed files
+ * while the app keeps serving requests.
+ * File events are collected until the directory has been quiet for
+ * `bulk.import.watch.quiet-ms`, or for at most `bulk.import.watch.max-delay-ms`,
+ * and then imported & summarized together as one micro-batch.
+ * The import manifest means only the appended lines are read.
+ * `bulk.import.watch.mode=poll` rescans the directory instead of using a
+ * WatchService, for mounts that don't deliver file events (e.g. docker on a mac).
+ * A file whose last line has no terminator yet is only partly imported,
+ * so it is imported again once it has settled, even with no new events.
+ */
+@Component
+@Slf4j
+public class ImportWatcher {
+
+    /**
+     * How changes in the directory are noticed.
+     */
+    public enum Mode {
+        EVENTS, // NIO WatchService
+        POLL // compare sizes & modified times every quiet-ms
+    }
+
+    private final BulkImport bulkImport;
+    private final Map<Path, Long> heldBack = new HashMap<>(); // partly imported files, by when they settle, watch thread only
+    private volatile boolean running;
+    private Thread thread;
+
+    @Value("${bulk.import.dir}")
+    private Path dir;
+
+    @Value("${bulk.import.watch.enabled:false}")
+    private boolean enabled;
+
+    @Value("${bulk.import.watch.mode:events}")
+    private Mode mode;
+
+    @Value("${bulk.import.watch.quiet-ms:2000}")
+    private long quietMs; // how long to wait for more changes before importing
+
+    @Value("${bulk.import.watch.max-delay-ms:10000}")
+    private long maxDelayMs; // never hold a change back longer than this
+
+    public ImportWatcher(BulkImport bulkImport) {
+        this.bulkImport = bulkImport;
+    }
+
+    /**
+     * Start watching in the background, if enabled.
+     */
+    public synchronized void start() {
+        if (!enabled || running) return;
+        if (dir == null || !Files.isDirectory(dir)) {
+            log.error("watch dir must be a directory");
+            return;
+        }
+
+        running = true;
+        thread = new Thread(this::run, "bulk-import-watch");
+        thread.setDaemon(true);
+        thread.start();
+        log.info(String.format("watching %s for changes (%s)", dir, mode));
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    private void run() {
+        try {
+            holdBack(scan().keySet()); // files the startup import only partly read
+            if (mode == Mode.POLL) {
+                poll();
+            } else {
+                watch();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            log.debug("watch stopped");
+        } catch (Throwable t) {
+            log.error("watch failed", t);
+        } finally {
+            running = false;
+        }
+    }
+
+    // collect WatchService events into batches
+    private void watch() throws IOException, InterruptedException {
+        try (WatchService watchService = dir.getFileSystem().newWatchService()) {
+            dir.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+
+            Set<Path> pending = new TreeSet<>();
+            long firstPending = 0;
+            while (running) {
+                Collection<Path> settled = takeSettled();
+                if (!settled.isEmpty()) {
+                    if (pending.isEmpty()) firstPending = System.currentTimeMillis();
+                    pending.addAll(settled);
+                }
+
+                WatchKey key;
+                if (pending.isEmpty()) {
+                    long untilSettled = untilSettled();
+                    key = untilSettled == Long.MAX_VALUE
+                            ? watchService.take()
+                            : watchService.poll(untilSettled, TimeUnit.MILLISECONDS);
+                    if (key == null) continue; // a held back file has settled
+                    firstPending = System.currentTimeMillis();
+                } else {
+                    long wait = Math.min(quietMs, firstPending + maxDelayMs - System.currentTimeMillis());
+                    key = wait > 0 ? watchService.poll(wait, TimeUnit.MILLISECONDS) : null;
+                }
+
+                if (key == null) {
+                    // quiet for long enough, or held back too long
+                    importBatch(pending);
+                    pending.clear();
+                    continue;
+                }
+
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        pending.addAll(scan().keySet()); // events were lost, check everything
+                    } else {
+                        Path path = dir.resolve((Path) event.context());
+                        if (BulkImport.isImportFile(path)) pending.add(path);
+                    }
+                }
+                if (!key.reset()) {
+                    log.error("watch dir is no longer accessible");
+                    return;
+                }
+            }
+        }
+    }
+
+    // rescan the directory every quiet-ms, importing what changed since the last scan
+    private void poll() throws IOException, InterruptedException {
+        Map<Path, String> seen = scan();
+        while (running) {
+            Thread.sleep(quietMs);
+            Map<Path, String> current = scan();
+            Set<Path> changed = current.entrySet().stream()
+                    .filter(e -> !e.getValue().equals(seen.get(e.getKey())))
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toCollection(TreeSet::new));
+            changed.addAll(takeSettled());
+            importBatch(changed);
+            seen.clear();
+            seen.putAll(current);
+        }
+    }
+
+    // the import files in the directory, with their size & modified time
+    private Map<Path, String> scan() throws IOException {
+        Map<Path, String> files = new HashMap<>();
+        try (Stream<Path> paths = Files.list(dir)) {
+            for (Path path : paths.filter(BulkImport::isImportFile).collect(Collectors.toList())) {
+                files.put(path, Files.size(path) + ":" + Files.getLastModifiedTime(path).toMillis());
+            }
+        }
+        return files;
+    }
+
+    private void importBatch(Collection<Path> files) throws IOException {
+        if (files.isEmpty()) return;
+        log.debug(String.format("%,d changed file%s", files.size(), files.size() != 1 ? "s" : ""));
+        List<Path> batch = new ArrayList<>(files);
+        bulkImport.importChanged(batch);
+        holdBack(batch);
+    }
+
+    // note which of the files were only partly imported, to import them again once they settle
+    private void holdBack(Collection<Path> files) throws IOException {
+        files.forEach(heldBack::remove);
+        for (Path path : bulkImport.heldBack(files)) {
+            if (Files.exists(path)) {
+                heldBack.put(path, Files.getLastModifiedTime(path).toMillis() + bulkImport.getSettleMs());
+            }
+        }
+    }
+
+    // the held back files that have settled by now, no longer held
+    private Collection<Path> takeSettled() {
+        long now = System.currentTimeMillis();
+        List<Path> settled = heldBack.entrySet().stream()
+                .filter(e -> e.getValue() <= now)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        settled.forEach(heldBack::remove);
+        return settled;
+    }
+
+    // millis until the next held back file settles, Long.MAX_VALUE when none is held
+    private long untilSettled() {
+        return heldBack.values().stream()
+                .mapToLong(settles -> Math.max(1, settles - System.currentTimeMillis()))
+                .min()
+                .orElse(Long.MAX_VALUE);
+    }
+}
@@ -0,0 +1,249 @@
+package corteva.weather.etl;
+
+import corteva.weather.core.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+
+/**
+ * Parses station files straight from an NIO read buffer.
+ * Each line is `yyyyMMdd \t maxTemp \t minTemp \t precip`, and
+ * the date, the three ints and the null token are decoded from the raw
+ * bytes, so no Strings, arrays or boxed values are created per line.
+ * The read buffer is reused for every file handed to the same parser,
+ * so a parser is not thread-safe; use one per worker.
+ */
+public class StationFileParser {
+    public static final int NULL_VALUE = MeasurementBatch.NULL_VALUE; // the file's null token, decoded as an int
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final int INVALID = Integer.MIN_VALUE; // never a legal value, see MAX_DIGITS
+    private static final int MAX_DIGITS = 9; // keeps parsed ints clear of overflow
+    private static final long DAYS_0000_TO_1970 = 719_528L;
+
+    /**
+     * Why a line was not turned into a record.
+     */
+    public enum Reject {
+        EMPTY, FIELD_COUNT, DATE, NUMBER, TOO_LONG
+    }
+
+    /**
+     * Receives the parsed lines. Values equal to {@link #NULL_VALUE} are nulls.
+     */
+    public interface Handler {
+        void record(long epochDay, int maxTemp, int minTemp, int totalPrecip);
+
+        void reject(Reject reason, long lineNumber);
+    }
+
+    private final ByteBuffer buffer;
+    private long lines; // lines seen by the last parse
+
+    public StationFileParser() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    public StationFileParser(int bufferSize) {
+        this.buffer = ByteBuffer.allocate(bufferSize);
+    }
+
+    /**
+     * Parse every complete line of the file starting at the given byte offset.
+     * A last line with no line terminator may still be being written, so it
+     * is left for a later call, see {@link #parse(Path, long, boolean, Handler)}.
+     *
+     * @return the file offset just after the last complete line
+     */
+    public long parse(Path path, long offset, Handler handler) throws IOException {
+        return parse(path, offset, false, handler);
+    }
+
+    /**
+     * Parse every line of the file starting at the given byte offset.
+     * A last line with no line terminator is only parsed when the caller
+     * knows the file is finished, as then it is complete; otherwise it is
+     * neither parsed nor covered by the returned offset, so it is read
+     * whole once its line terminator has been written.
+     *
+     * @param finished true to parse an unterminated last line as complete
+     * @return the file offset just after the last line parsed
+     */
+    public long parse(Path path, long offset, boolean finished, Handler handler) throws IOException {
+        lines = 0;
+        byte[] bytes = buffer.array();
+        long base = offset; // file offset of bytes[0]
+        long consumed = offset;
+        int filled = 0; // valid bytes in the buffer
+        int lineStart = 0;
+        int scan = 0;
+        boolean skipping = false; // discarding the rest of an over-long line
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            channel.position(offset);
+            while (true) {
+                buffer.clear().position(filled);
+                int n = channel.read(buffer);
+                if (n < 0) break;
+                filled += n;
+
+                for (int i = scan; i < filled; i++) {
+                    if (bytes[i] != '\n') continue;
+                    if (skipping) {
+                        skipping = false;
+                    } else {
+                        parseLine(bytes, lineStart, i, handler);
+                    }
+                    lineStart = i + 1;
+                    consumed = base + lineStart;
+                }
+                scan = filled;
+
+                if (lineStart == 0 && filled == bytes.length) {
+                    // no line terminator in a full buffer, drop the line
+                    if (!skipping) {
+                        lines++;
+                        handler.reject(Reject.TOO_LONG, lines);
+                        skipping = true;
+                    }
+                    base += filled;
+                    filled = 0;
+                    scan = 0;
+                } else if (lineStart > 0) {
+                    // move the partial line to the front of the buffer
+                    System.arraycopy(bytes, lineStart, bytes, 0, filled - lineStart);
+                    filled -= lineStart;
+                    scan -= lineStart;
+                    base += lineStart;
+                    lineStart = 0;
+                }
+            }
+        }
+
+        if (finished && !skipping && filled > lineStart) {
+            parseLine(bytes, lineStart, filled, handler);
+            consumed = base + filled;
+        }
+        return consumed;
+    }
+
+    /**
+     * @return how many lines the last call to parse saw, good or bad
+     */
+    public long getLines() {
+        return lines;
+    }
+
+    // decode one line, the range excludes the '\n'
+    private void parseLine(byte[] b, int from, int to, Handler handler) {
+        lines++;
+        if (to > from && b[to - 1] == '\r') to--;
+        if (to == from) {
+            handler.reject(Reject.EMPTY, lines);
+            return;
+        }
+
+        int t1 = indexOfTab(b, from, to);
+        int t2 = t1 < 0 ? -1 : indexOfTab(b, t1 + 1, to);
+        int t3 = t2 < 0 ? -1 : indexOfTab(b, t2 + 1, to);
+        if (t3 < 0 || indexOfTab(b, t3 + 1, to) >= 0) {
+            handler.reject(Reject.FIELD_COUNT, lines);
+            return;
+        }
+
+        long epochDay = parseDate(b, from, t1);
+        if (epochDay == Long.MIN_VALUE) {
+            handler.reject(Reject.DATE, lines);
+            return;
+        }
+
+        int maxTemp = parseInt(b, t1 + 1, t2);
+        int minTemp = parseInt(b, t2 + 1, t3);
+        int totalPrecip = parseInt(b, t3 + 1, to);
+        if (maxTemp == INVALID || minTemp == INVALID || totalPrecip == INVALID) {
+            handler.reject(Reject.NUMBER, lines);
+            return;
+        }
+
+        handler.record(epochDay, maxTemp, minTemp, totalPrecip);
+    }
+
+    // position of the next tab in the range, or -1
+    private static int indexOfTab(byte[] b, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (b[i] == '\t') return i;
+        }
+        return -1;
+    }
+
+    // decode a trimmed, signed decimal int, or INVALID
+    static int parseInt(byte[] b, int from, int to) {
+        while (from < to && b[from] <= ' ') from++;
+        while (to > from && b[to - 1] <= ' ') to--;
+        if (from == to) return INVALID;
+
+        boolean negative = false;
+        if (b[from] == '-' || b[from] == '+') {
+            negative = b[from] == '-';
+            from++;
+        }
+        if (from == to || to - from > MAX_DIGITS) return INVALID;
+
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = b[i] - '0';
+            if (digit < 0 || digit > 9) return INVALID;
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    // decode a trimmed yyyyMMdd date into an epoch day, or Long.MIN_VALUE
+    static long parseDate(byte[] b, int from, int to) {
+        while (from < to && b[from] <= ' ') from++;
+        while (to > from && b[to - 1] <= ' ') to--;
+        if (to - from != 8) return Long.MIN_VALUE;
+
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = b[i] - '0';
+            if (digit < 0 || digit > 9) return Long.MIN_VALUE;
+            value = value * 10 + digit;
+        }
+
+        int year = value / 10_000;
+        int month = value / 100 % 100;
+        int day = value % 100;
+        if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) return Long.MIN_VALUE;
+        return epochDay(year, month, day);
+    }
+
+    /**
+     * Same result as LocalDate.of(year, month, day).toEpochDay(),
+     * for years 0 to 9999, without creating the LocalDate.
+     */
+    public static long epochDay(int year, int month, int day) {
+        long y = year;
+        long total = 365 * y + (y + 3) / 4 - (y + 99) / 100 + (y + 399) / 400;
+        total += (367L * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeapYear(year)) total--;
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> isLeapYear(year) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+}
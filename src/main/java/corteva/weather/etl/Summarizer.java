@@ -0,0 +1,235 @@
+package corteva.weather.etl;
+
+import corteva.weather.core.*;
+import lombok.extern.slf4j.*;
+import org.apache.commons.lang3.time.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.stereotype.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.function.*;
+import java.util.stream.*;
+
+/**
+ * Keeps the stats in step with the measurements.
+ * Stats are derived from the per station-year sums & counts in
+ * stats_totals, which are built from the monthly rollups, which are
+ * either rebuilt from scratch, recomputed for just the station-years an
+ * import changed, or, in streaming mode, have the per month totals the
+ * import aggregated on the way in added to them, so the measurements
+ * don't have to be read again at all.
+ * The decadal & all-time rollups are brought up to date along with the
+ * stats, each level from the one below it (see RollupRepository).
+ * The changed station-years are only held in memory, so when an import's
+ * summarization never ran (see ImportManifest.summarized) the next
+ * summarization is a full one.
+ * Totals, stats & rollups sit on the same shard as their station's measurements,
+ * so every shard is summarized on its own.
+ */
+@Service
+@Slf4j
+public class Summarizer {
+
+    /**
+     * How summarize brings the stats up to date, set by `bulk.summarize.mode`.
+     */
+    public enum Mode {
+        FULL, // every station & year, from scratch
+        INCREMENTAL, // only station-years changed by the import, their months from the measurements
+        STREAMING // only station-years changed by the import, their months from what the import aggregated
+    }
+
+    private final StatsRepository statsRepository;
+    private final StatsTotalsRepository totalsRepository;
+    private final RollupRepository rollupRepository;
+    private final ImportMetrics metrics;
+    private final DatasetVersion datasetVersion;
+    private final Shards shards;
+    private final ChangedYears changedYears = new ChangedYears(); // what needs summarizing again
+    private volatile boolean fullRequired; // changes were imported that are no longer in changedYears
+
+    @Value("${bulk.summarize.mode:incremental}")
+    private Mode mode;
+
+    public Summarizer(StatsRepository statsRepository, StatsTotalsRepository totalsRepository,
+                      RollupRepository rollupRepository, ImportMetrics metrics,
+                      DatasetVersion datasetVersion, Shards shards) {
+        this.statsRepository = statsRepository;
+        this.totalsRepository = totalsRepository;
+        this.rollupRepository = rollupRepository;
+        this.metrics = metrics;
+        this.datasetVersion = datasetVersion;
+        this.shards = shards;
+    }
+
+    /**
+     * Note the rows an import added for a station.
+     */
+    void recordChanges(String station, YearlyTotals added) {
+        changedYears.add(station, added);
+    }
+
+    /**
+     * Make the next summarize a full one, for when an earlier import's
+     * changes were never summarized, e.g. the app stopped part way.
+     */
+    void requireFull() {
+        fullRequired = true;
+    }
+
+    /**
+     * Bring the stats up to date with everything recorded since the last call.
+     *
+     * @param exactTotals false if the import may have replaced existing rows,
+     *                    in which case what it aggregated can't just be added on
+     */
+    public void summarize(boolean exactTotals) {
+        Map<String, YearlyTotals> changed = changedYears.drain();
+        Mode effective = effectiveMode(exactTotals);
+
+        log.info(String.format("summarize started, %s", effective));
+        StopWatch stopWatch = StopWatch.createStarted();
+        metrics.timeSummarize(effective, () -> {
+            switch (effective) {
+                case FULL -> summarizeAll();
+                case INCREMENTAL -> changed.forEach((station, added) -> shards.runForStation(station, () -> {
+                    summarizeMonths(station, added.getYears());
+                    summarizeYears(station, added.getYears());
+                    rollUpYears(station, added.getYears());
+                }));
+                case STREAMING -> changed.forEach((station, added) -> shards.runForStation(station, () -> {
+                    mergeMonths(station, added);
+                    mergeYears(station, added);
+                    rollUpYears(station, added.getYears());
+                }));
+            }
+        });
+        if (effective == Mode.FULL) fullRequired = false;
+        datasetVersion.advanceStats();
+        stopWatch.stop();
+        int groups = changed.values().stream().mapToInt(t -> t.getYears().cardinality()).sum();
+        log.info(String.format("summarize complete, %,d changed station-year%s, elapsed time: %s",
+                groups, groups != 1 ? "s" : "", stopWatch.formatTime()));
+    }
+
+    // full when there are no stats or rollups yet or changes were lost, and streaming only when the totals can be trusted
+    private Mode effectiveMode(boolean exactTotals) {
+        if (fullRequired) return Mode.FULL;
+        if (!shards.onEach(statsRepository::existsByStationNotNull).contains(true)) return Mode.FULL;
+        if (!shards.onEach(rollupRepository::existsByStationNotNull).contains(true)) return Mode.FULL;
+        if (mode == Mode.STREAMING && !exactTotals) return Mode.INCREMENTAL;
+        return mode;
+    }
+
+    // rebuild all rollups, totals & stats from the measurements, on every shard
+    private void summarizeAll() {
+        shards.runOnEach(this::summarizeShard);
+    }
+
+    // months from the measurements, then everything else from the months
+    private void summarizeShard() {
+        rollupRepository.clear();
+        rollupRepository.summarizeMonths();
+        totalsRepository.deleteAll();
+        totalsRepository.summarizeAll();
+        statsRepository.deleteAll();
+        statsRepository.summarizeAll();
+        rollupRepository.summarizeDecades();
+        rollupRepository.summarizeAllTime();
+    }
+
+    // recompute the months of the given years from the measurements, one query per run of consecutive years
+    private void summarizeMonths(String station, BitSet years) {
+        for (int from = years.nextSetBit(0); from >= 0; from = years.nextSetBit(from)) {
+            int to = years.nextClearBit(from);
+            rollupRepository.summarizeStationMonths(station, LocalDate.of(from, 1, 1), LocalDate.of(to, 1, 1));
+            from = to;
+        }
+    }
+
+    // recompute the totals & stats of the given years from their months
+    private void summarizeYears(String station, BitSet years) {
+        for (int from = years.nextSetBit(0); from >= 0; from = years.nextSetBit(from)) {
+            int to = years.nextClearBit(from);
+            totalsRepository.summarizeStation(station, LocalDate.of(from, 1, 1), LocalDate.of(to, 1, 1));
+            statsRepository.summarizeStation(station, LocalDate.of(from, 1, 1), LocalDate.of(to, 1, 1));
+            from = to;
+        }
+    }
+
+    // the decades of the given years from the yearly totals, then all time
+    private void rollUpYears(String station, BitSet years) {
+        BitSet decades = new BitSet();
+        for (int from = years.nextSetBit(0); from >= 0; from = years.nextSetBit(from)) {
+            int to = years.nextClearBit(from);
+            decades.set(from / 10, (to - 1) / 10 + 1);
+            from = to;
+        }
+        for (int from = decades.nextSetBit(0); from >= 0; from = decades.nextSetBit(from)) {
+            int to = decades.nextClearBit(from);
+            rollupRepository.summarizeStationDecades(station, LocalDate.of(from * 10, 1, 1), LocalDate.of(to * 10, 1, 1));
+            from = to;
+        }
+        if (!years.isEmpty()) {
+            rollupRepository.deleteStationAllTime(station);
+            rollupRepository.summarizeStationAllTime(station);
+        }
+    }
+
+    // add what the import aggregated to the stored months, starting months the station had no rows in
+    private void mergeMonths(String station, YearlyTotals added) {
+        BitSet months = added.getMonths();
+        List<RollupId> ids = months.stream()
+                .mapToObj(m -> new RollupId(Rollup.Level.MONTH, station, YearlyTotals.startOf(m)))
+                .collect(Collectors.toList());
+        Map<LocalDate, Rollup> existing = rollupRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Rollup::getPeriod, Function.identity()));
+
+        List<Rollup> merged = new ArrayList<>();
+        for (int m = months.nextSetBit(0); m >= 0; m = months.nextSetBit(m + 1)) {
+            LocalDate period = YearlyTotals.startOf(m);
+            Rollup month = existing.get(period);
+            if (month == null) {
+                month = Rollup.builder().level(Rollup.Level.MONTH).station(station).period(period).build();
+            }
+            month.add(
+                    added.getSum(m, YearlyTotals.MAX_TEMP), added.getCount(m, YearlyTotals.MAX_TEMP),
+                    added.getSum(m, YearlyTotals.MIN_TEMP), added.getCount(m, YearlyTotals.MIN_TEMP),
+                    added.getSum(m, YearlyTotals.PRECIP), added.getCount(m, YearlyTotals.PRECIP)
+            );
+            merged.add(month);
+        }
+        rollupRepository.saveAll(merged);
+    }
+
+    // add what the import aggregated to the stored totals, and write the stats from them
+    private void mergeYears(String station, YearlyTotals added) {
+        BitSet years = added.getYears();
+        List<StatsId> ids = years.stream()
+                .mapToObj(y -> new StatsId(station, LocalDate.of(y, 1, 1)))
+                .collect(Collectors.toList());
+        Map<LocalDate, StatsTotals> existing = totalsRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(StatsTotals::getYear, Function.identity()));
+
+        List<StatsTotals> merged = new ArrayList<>();
+        BitSet missing = new BitSet(); // no stored totals to add to, e.g. a new year
+        for (int y = years.nextSetBit(0); y >= 0; y = years.nextSetBit(y + 1)) {
+            StatsTotals totals = existing.get(LocalDate.of(y, 1, 1));
+            if (totals == null) {
+                missing.set(y);
+                continue;
+            }
+            totals.add(
+                    added.getYearSum(y, YearlyTotals.MAX_TEMP), added.getYearCount(y, YearlyTotals.MAX_TEMP),
+                    added.getYearSum(y, YearlyTotals.MIN_TEMP), added.getYearCount(y, YearlyTotals.MIN_TEMP),
+                    added.getYearSum(y, YearlyTotals.PRECIP), added.getYearCount(y, YearlyTotals.PRECIP)
+            );
+            merged.add(totals);
+        }
+
+        totalsRepository.saveAll(merged);
+        statsRepository.saveAll(merged.stream().map(StatsTotals::toStats).collect(Collectors.toList()));
+        summarizeYears(station, missing); // from the months just merged
+    }
+}
@@ -0,0 +1,107 @@
+package corteva.weather.etl;
+
+import corteva.weather.core.*;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+/**
+ * Streams one station's rows to the db in fixed-size chunks.
+ * The parsing thread fills a chunk while earlier chunks are being written
+ * on the shared writer pool. Only `depth` chunks exist per file, and they
+ * are recycled once written, so when the db falls behind the parser blocks
+ * instead of the heap growing.
+ * After a write fails, the chunks still queued are dropped rather than
+ * written, and finish reports how many rows that was; the file's
+ * manifest isn't saved then, so the next import reads them again.
+ */
+class WritePipeline {
+    private final String station;
+    private final Executor writers;
+    private final Consumer<MeasurementBatch> sink;
+    private final BlockingQueue<MeasurementBatch> free; // chunks not being filled or written
+    private final int depth;
+    private volatile Throwable failure; // first write error, if any
+    private final LongAdder dropped = new LongAdder(); // rows not written after the failure
+    private MeasurementBatch current; // chunk being filled
+
+    WritePipeline(String station, int chunkSize, int depth, Executor writers, Consumer<MeasurementBatch> sink) {
+        this.station = station;
+        this.writers = writers;
+        this.sink = sink;
+        this.depth = depth;
+        this.free = new ArrayBlockingQueue<>(depth);
+        for (int i = 0; i < depth; i++) {
+            free.add(new MeasurementBatch(station, chunkSize));
+        }
+    }
+
+    /**
+     * Add a row, handing the current chunk to a writer once it is full.
+     * Blocks while every chunk is waiting to be written.
+     */
+    void add(long epochDay, int maxTemp, int minTemp, int totalPrecip) {
+        if (current == null) current = takeFree();
+        current.add(epochDay, maxTemp, minTemp, totalPrecip);
+        if (current.isFull()) {
+            submit(current);
+            current = null;
+        }
+    }
+
+    /**
+     * Write what is left and wait for every chunk to be written.
+     */
+    void finish() throws InterruptedException {
+        if (current != null && !current.isEmpty()) {
+            submit(current);
+        } else if (current != null) {
+            free.add(current);
+        }
+        current = null;
+
+        // every chunk is back in the free queue once all writes are done
+        for (int i = 0; i < depth; i++) {
+            free.take();
+        }
+        checkFailure();
+    }
+
+    // wait for a written chunk to come back
+    private MeasurementBatch takeFree() {
+        try {
+            MeasurementBatch batch = free.take();
+            checkFailure();
+            return batch;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException(String.format("import of %s interrupted", station));
+        }
+    }
+
+    // write the chunk on the writer pool, recycling it afterwards
+    private void submit(MeasurementBatch batch) {
+        writers.execute(() -> {
+            try {
+                if (failure == null) {
+                    sink.accept(batch);
+                } else {
+                    dropped.add(batch.size());
+                }
+            } catch (Throwable t) {
+                failure = t;
+            } finally {
+                batch.clear();
+                free.add(batch);
+            }
+        });
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw new IllegalStateException(String.format(
+                    "writing %s failed, %,d queued rows not written", station, dropped.sum()), failure);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package corteva.weather.etl;
+
+import corteva.weather.core.*;
+
+import java.time.*;
+import java.util.*;
+
+/**
+ * Per-month sums & counts of one station's imported rows, kept in
+ * primitive arrays indexed by month so the import can aggregate as it
+ * goes without creating anything per row. Nulls are skipped, like AVG does.
+ * Months are numbered from year 0, see monthOf; the yearly totals are
+ * the sums of their months, the same way stats_totals is built from the
+ * monthly rollups.
+ * Also remembers which months had any rows at all, even all-null ones.
+ * Not thread-safe, each import worker keeps its own.
+ */
+class YearlyTotals {
+    static final int MAX_TEMP = 0;
+    static final int MIN_TEMP = 1;
+    static final int PRECIP = 2;
+    private static final int METRICS = 3;
+
+    private int firstMonth;
+    private long[] sums = new long[0]; // [month - firstMonth][metric], flattened
+    private long[] counts = new long[0];
+    private final BitSet months = new BitSet(); // months with rows
+    private long monthStart = 1; // epoch days of the month last looked up, starts out empty
+    private long monthEnd = 0;
+    private int month;
+
+    void add(long epochDay, int maxTemp, int minTemp, int totalPrecip) {
+        int m = monthOf(epochDay);
+        months.set(m);
+        int base = slot(m);
+        add(base + MAX_TEMP, maxTemp);
+        add(base + MIN_TEMP, minTemp);
+        add(base + PRECIP, totalPrecip);
+    }
+
+    /**
+     * The totals of the rows in a batch.
+     */
+    static YearlyTotals of(MeasurementBatch batch) {
+        YearlyTotals totals = new YearlyTotals();
+        for (int i = 0; i < batch.size(); i++) {
+            totals.add(batch.getEpochDay(i), batch.getMaxTemp(i), batch.getMinTemp(i), batch.getTotalPrecip(i));
+        }
+        return totals;
+    }
+
+    /**
+     * Fold another station's totals into these.
+     */
+    void merge(YearlyTotals other) {
+        for (int m = other.months.nextSetBit(0); m >= 0; m = other.months.nextSetBit(m + 1)) {
+            months.set(m);
+            int base = slot(m);
+            for (int metric = 0; metric < METRICS; metric++) {
+                sums[base + metric] += other.getSum(m, metric);
+                counts[base + metric] += other.getCount(m, metric);
+            }
+        }
+    }
+
+    /**
+     * The months that had rows added, indexed by month, see monthOf.
+     */
+    BitSet getMonths() {
+        return months;
+    }
+
+    /**
+     * The years that had rows added, indexed by year.
+     */
+    BitSet getYears() {
+        BitSet years = new BitSet();
+        for (int m = months.nextSetBit(0); m >= 0; m = months.nextSetBit(m + 1)) {
+            years.set(m / 12);
+        }
+        return years;
+    }
+
+    long getSum(int m, int metric) {
+        int i = (m - firstMonth) * METRICS + metric;
+        return i >= 0 && i < sums.length ? sums[i] : 0;
+    }
+
+    long getCount(int m, int metric) {
+        int i = (m - firstMonth) * METRICS + metric;
+        return i >= 0 && i < counts.length ? counts[i] : 0;
+    }
+
+    long getYearSum(int y, int metric) {
+        long sum = 0;
+        for (int m = y * 12; m < (y + 1) * 12; m++) {
+            sum += getSum(m, metric);
+        }
+        return sum;
+    }
+
+    long getYearCount(int y, int metric) {
+        long count = 0;
+        for (int m = y * 12; m < (y + 1) * 12; m++) {
+            count += getCount(m, metric);
+        }
+        return count;
+    }
+
+    // the month's index, counting from January of year 0
+    static int monthOf(int year, int monthValue) {
+        return year * 12 + monthValue - 1;
+    }
+
+    // the first day of the month with the given index
+    static LocalDate startOf(int m) {
+        return LocalDate.of(m / 12, m % 12 + 1, 1);
+    }
+
+    private void add(int i, int value) {
+        if (value == MeasurementBatch.NULL_VALUE) return;
+        sums[i] += value;
+        counts[i]++;
+    }
+
+    // index of the month's first metric, growing the arrays to fit it
+    private int slot(int m) {
+        int span = sums.length / METRICS;
+        if (span == 0) {
+            firstMonth = m;
+            span = 1;
+            sums = new long[METRICS];
+            counts = new long[METRICS];
+        } else if (m < firstMonth) {
+            int shift = (firstMonth - m) * METRICS;
+            sums = shifted(sums, shift);
+            counts = shifted(counts, shift);
+            firstMonth = m;
+        } else if (m >= firstMonth + span) {
+            sums = Arrays.copyOf(sums, (m - firstMonth + 1) * METRICS);
+            counts = Arrays.copyOf(counts, (m - firstMonth + 1) * METRICS);
+        }
+        return (m - firstMonth) * METRICS;
+    }
+
+    private static long[] shifted(long[] values, int shift) {
+        long[] grown = new long[values.length + shift];
+        System.arraycopy(values, 0, grown, shift, values.length);
+        return grown;
+    }
+
+    // lines are mostly in date order, so only look the month up when it changes
+    private int monthOf(long epochDay) {
+        if (epochDay < monthStart || epochDay > monthEnd) {
+            LocalDate date = LocalDate.ofEpochDay(epochDay);
+            month = monthOf(date.getYear(), date.getMonthValue());
+            monthStart = date.withDayOfMonth(1).toEpochDay();
+            monthEnd = monthStart + date.lengthOfMonth() - 1;
+        }
+        return month;
+    }
+}
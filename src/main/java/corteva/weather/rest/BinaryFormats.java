@@ -0,0 +1,37 @@
+package corteva.weather.rest;
+
+import com.fasterxml.jackson.dataformat.cbor.*;
+import com.fasterxml.jackson.dataformat.smile.*;
+import org.springframework.beans.factory.*;
+import org.springframework.context.annotation.*;
+import org.springframework.http.converter.*;
+import org.springframework.http.converter.cbor.*;
+import org.springframework.http.converter.json.*;
+import org.springframework.http.converter.smile.*;
+import org.springframework.web.servlet.config.annotation.*;
+
+import java.util.*;
+
+/**
+ * Lets api clients ask for binary CBOR (`Accept: application/cbor`) or
+ * Smile (`Accept: application/x-jackson-smile`) instead of json.
+ * Both are built from the same Jackson settings as the json responses,
+ * so they carry the same fields & date formats, and are added after
+ * the json converter so json stays the default for browsers & swagger.
+ */
+@Configuration
+public class BinaryFormats implements WebMvcConfigurer {
+    private final ObjectProvider<Jackson2ObjectMapperBuilder> builders;
+
+    public BinaryFormats(ObjectProvider<Jackson2ObjectMapperBuilder> builders) {
+        this.builders = builders;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // replace the defaults Spring adds when the formats are on the classpath, which ignore Boot's Jackson settings
+        converters.removeIf(c -> c instanceof MappingJackson2CborHttpMessageConverter || c instanceof MappingJackson2SmileHttpMessageConverter);
+        converters.add(new MappingJackson2CborHttpMessageConverter(builders.getObject().factory(new CBORFactory()).build()));
+        converters.add(new MappingJackson2SmileHttpMessageConverter(builders.getObject().factory(new SmileFactory()).build()));
+    }
+}
@@ -0,0 +1,72 @@
+package corteva.weather.rest;
+
+import corteva.weather.core.*;
+import org.springframework.http.*;
+import org.springframework.web.context.request.*;
+
+import java.util.*;
+
+/**
+ * Conditional GET support: responses are tagged with the dataset
+ * generation they were read from, as a weak ETag plus Last-Modified.
+ * A request whose If-None-Match (or If-Modified-Since) still matches is
+ * answered with a 304 before anything is queried.
+ * The same data goes out as json, CBOR or Smile (see BinaryFormats), so
+ * the ETag also names the representation the Accept header negotiates,
+ * and responses carry `Vary: Accept` for shared caches.
+ */
+final class DatasetETags {
+    // in the order the converters are tried, json first
+    private static final List<MediaType> REPRESENTATIONS = List.of(
+            MediaType.APPLICATION_JSON,
+            MediaType.parseMediaType("application/cbor"),
+            MediaType.parseMediaType("application/x-jackson-smile")
+    );
+    private static final Comparator<MediaType> PREFERRED = Comparator
+            .comparingDouble(MediaType::getQualityValue).reversed()
+            .thenComparing(MediaType::isWildcardType)
+            .thenComparing(MediaType::isWildcardSubtype);
+
+    private DatasetETags() {
+    }
+
+    // true if the client's measurements are current, the 304 has then been set up
+    static boolean measurementsNotModified(WebRequest request, DatasetVersion version) {
+        return notModified(request, "m", version.getStarted(), version.getMeasurements(), version.getMeasurementsModified());
+    }
+
+    // true if the client's stats are current, the 304 has then been set up
+    static boolean statsNotModified(WebRequest request, DatasetVersion version) {
+        return notModified(request, "s", version.getStarted(), version.getStats(), version.getStatsModified());
+    }
+
+    // sets the ETag, Last-Modified & Vary headers either way
+    private static boolean notModified(WebRequest request, String kind, long started, long generation, long modified) {
+        if (request instanceof ServletWebRequest servletRequest && servletRequest.getResponse() != null) {
+            servletRequest.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        String etag = "W/\"" + kind + "-" + Long.toString(started, 36) + "-" + generation + "-" + representation(request) + "\"";
+        return request.checkNotModified(etag, modified);
+    }
+
+    // the subtype the response will be written as: the most preferred acceptable one, json by default
+    private static String representation(WebRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null || accept.isBlank()) return MediaType.APPLICATION_JSON.getSubtype();
+
+        List<MediaType> accepted;
+        try {
+            accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_JSON.getSubtype();
+        }
+        accepted.sort(PREFERRED);
+        for (MediaType type : accepted) {
+            if (type.getQualityValue() == 0) continue;
+            for (MediaType representation : REPRESENTATIONS) {
+                if (type.includes(representation)) return representation.getSubtype();
+            }
+        }
+        return MediaType.APPLICATION_JSON.getSubtype();
+    }
+}
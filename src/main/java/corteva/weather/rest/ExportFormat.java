@@ -0,0 +1,99 @@
+package corteva.weather.rest;
+
+import java.io.*;
+
+/**
+ * The formats measurements can be exported in.
+ * Rows are written field by field, without building an object per row,
+ * with the same field names as the json api.
+ */
+enum ExportFormat {
+    NDJSON("application/x-ndjson", "ndjson") {
+        @Override
+        void writeHeader(Writer out) {
+        }
+
+        @Override
+        void writeRow(Writer out, String station, String date, Integer minTemp, Integer maxTemp, Integer totalPrecip) throws IOException {
+            out.write("{\"station\":");
+            writeJsonString(out, station);
+            out.write(",\"date\":\"");
+            out.write(date);
+            out.write("\",\"minTemp\":");
+            out.write(String.valueOf(minTemp));
+            out.write(",\"maxTemp\":");
+            out.write(String.valueOf(maxTemp));
+            out.write(",\"totalPrecip\":");
+            out.write(String.valueOf(totalPrecip));
+            out.write("}\n");
+        }
+    },
+    CSV("text/csv", "csv") {
+        @Override
+        void writeHeader(Writer out) throws IOException {
+            out.write("station,date,minTemp,maxTemp,totalPrecip\n");
+        }
+
+        @Override
+        void writeRow(Writer out, String station, String date, Integer minTemp, Integer maxTemp, Integer totalPrecip) throws IOException {
+            writeCsvString(out, station);
+            out.write(',');
+            out.write(date);
+            out.write(',');
+            if (minTemp != null) out.write(minTemp.toString());
+            out.write(',');
+            if (maxTemp != null) out.write(maxTemp.toString());
+            out.write(',');
+            if (totalPrecip != null) out.write(totalPrecip.toString());
+            out.write('\n');
+        }
+    };
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    String getContentType() {
+        return contentType;
+    }
+
+    String getExtension() {
+        return extension;
+    }
+
+    abstract void writeHeader(Writer out) throws IOException;
+
+    abstract void writeRow(Writer out, String station, String date, Integer minTemp, Integer maxTemp, Integer totalPrecip) throws IOException;
+
+    // a quoted json string, escaping what json requires
+    private static void writeJsonString(Writer out, String s) throws IOException {
+        out.write('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.write('\\');
+                out.write(c);
+            } else if (c < ' ') {
+                out.write(String.format("\\u%04x", (int) c));
+            } else {
+                out.write(c);
+            }
+        }
+        out.write('"');
+    }
+
+    // a csv field, quoted only when it has to be
+    private static void writeCsvString(Writer out, String s) throws IOException {
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0 && s.indexOf('\r') < 0) {
+            out.write(s);
+            return;
+        }
+        out.write('"');
+        out.write(s.replace("\"", "\"\""));
+        out.write('"');
+    }
+}
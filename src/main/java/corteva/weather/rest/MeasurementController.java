@@ -10,15 +10,30 @@ import org.springframework.http.*;
 import org.springframework.validation.annotation.*;
 import org.springframework.web.bind.*;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.*;
+import org.springframework.web.context.request.async.*;
+import org.springframework.web.server.*;
+import org.springframework.web.servlet.mvc.method.annotation.*;
 
+import java.io.*;
+import java.nio.charset.*;
 import java.time.*;
 import java.time.format.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * rest controller for Measurements.
  * Validation and paging/filtering is handled
  * here as well.
+ * Passing `cursor` switches to keyset paging: an empty cursor starts
+ * at the beginning and each response carries the `next` cursor,
+ * which is null after the last page.
+ * `from` & `to` limit results to a date range, and `resolution`
+ * (day, week or month) returns per-bucket summaries instead of rows.
+ * `export` streams every matching measurement as ndjson or csv.
+ * Responses carry an ETag of the measurements generation, and
+ * unchanged data is answered with a 304 without being queried.
  */
 @RestController
 @RequestMapping("api/weather")
@@ -27,23 +42,42 @@ import java.util.*;
 public class MeasurementController {
     private static final DateTimeFormatter outputFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+
     private final MeasurementService service;
+    private final MeasurementExport export;
+    private final DatasetVersion version;
 
-    public MeasurementController(MeasurementService service) {
+    public MeasurementController(MeasurementService service, MeasurementExport export, DatasetVersion version) {
         this.service = service;
+        this.export = export;
+        this.version = version;
     }
 
     @GetMapping("")
     public ResponseEntity<Map<String, Object>> findAll(
             @RequestParam(required = false, name = "station") String station,
             @RequestParam(required = false, name = "date") @Valid @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false, name = "from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false, name = "to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false, name = "resolution") String resolution,
             @RequestParam(required = false, defaultValue = "0", name = "page") @Valid @Min(0) @Max(Integer.MAX_VALUE) int pageNum,
-            @RequestParam(required = false, defaultValue = "5", name = "size") @Valid @Min(1) @Min(1) @Max(100) int pageSize
+            @RequestParam(required = false, defaultValue = "5", name = "size") @Valid @Min(1) @Min(1) @Max(100) int pageSize,
+            @RequestParam(required = false, name = "cursor") String cursor,
+            @RequestParam(required = false, defaultValue = "true", name = "count") boolean count,
+            WebRequest request
     ) {
-        log.info(String.format(
-                "REST: Measurement - findAll() - station=%s, date=%s, page=%d, size=%d",
-                station, (date != null ? outputFormatter.format(date) : "null"), pageNum, pageSize
-        ));
+        if (log.isDebugEnabled()) {
+            log.debug(String.format(
+                    "REST: Measurement - findAll() - station=%s, date=%s, from=%s, to=%s, resolution=%s, page=%d, size=%d, cursor=%s",
+                    station, (date != null ? outputFormatter.format(date) : "null"), from, to, resolution, pageNum, pageSize, cursor
+            ));
+        }
+
+        DateRange range = toRange(from, to);
+        if (DatasetETags.measurementsNotModified(request, version)) {
+            return null;
+        }
 
         Measurement.MeasurementBuilder builder = Measurement.builder();
         if ("".equals(station)) station = null;
@@ -55,8 +89,19 @@ public class MeasurementController {
         }
         Measurement example = builder.build();
 
+        if (cursor != null) {
+            return findAfter(example, range, cursor, pageSize);
+        }
+
         Pageable paging = PageRequest.of(pageNum, pageSize);
-        Page<Measurement> page = service.findAll(example, paging);
+        if (resolution != null) {
+            return findBuckets(example, range, toResolution(resolution), paging);
+        }
+        if (!count) {
+            return findSlice(example, range, paging);
+        }
+
+        Page<Measurement> page = service.findAll(example, range, paging);
 
         List<Measurement> statsList = page.getContent();
 
@@ -67,10 +112,141 @@ public class MeasurementController {
         response.put("totalPages", page.getTotalPages());
         response.put("station", station);
         response.put("date", date == null ? null : outputFormatter.format(date));
+        putRange(response, range);
+
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    // keyset paging, seeking past the cursor instead of skipping an offset
+    private ResponseEntity<Map<String, Object>> findAfter(Measurement example, DateRange range, String cursor, int pageSize) {
+        Slice<Measurement> slice = service.findAfter(example, range, MeasurementCursor.decode(cursor), pageSize);
+
+        List<Measurement> statsList = slice.getContent();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("stats", statsList);
+        response.put("next", slice.hasNext() ? MeasurementCursor.encode(statsList.get(statsList.size() - 1)) : null);
+        response.put("pageSize", pageSize);
+        response.put("station", example.getStation());
+        response.put("date", example.getDate() == null ? null : outputFormatter.format(example.getDate()));
+        putRange(response, range);
+
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    // a page without totalItems & totalPages, so no count query is needed
+    private ResponseEntity<Map<String, Object>> findSlice(Measurement example, DateRange range, Pageable paging) {
+        Slice<Measurement> slice = service.findSlice(example, range, paging);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("stats", slice.getContent());
+        response.put("currentPage", slice.getNumber());
+        response.put("hasNext", slice.hasNext());
+        response.put("pageSize", slice.getSize());
+        response.put("station", example.getStation());
+        response.put("date", example.getDate() == null ? null : outputFormatter.format(example.getDate()));
+        putRange(response, range);
+
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    // one summary row per station & bucket instead of daily rows, paged like findSlice
+    private ResponseEntity<Map<String, Object>> findBuckets(Measurement example, DateRange range, Resolution resolution, Pageable paging) {
+        Slice<MeasurementBucket> slice = service.findBuckets(example, range, resolution, paging);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("stats", slice.getContent());
+        response.put("currentPage", slice.getNumber());
+        response.put("hasNext", slice.hasNext());
+        response.put("pageSize", slice.getSize());
+        response.put("station", example.getStation());
+        response.put("resolution", resolution.name().toLowerCase(Locale.ROOT));
+        putRange(response, range);
 
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
+    private static void putRange(Map<String, Object> response, DateRange range) {
+        response.put("from", range.from() == null ? null : outputFormatter.format(range.from()));
+        response.put("to", range.to() == null ? null : outputFormatter.format(range.to()));
+    }
+
+    private static DateRange toRange(LocalDate from, LocalDate to) {
+        try {
+            return new DateRange(from, to);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    private static Resolution toResolution(String resolution) {
+        try {
+            return Resolution.valueOf(resolution.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "resolution must be day, week or month");
+        }
+    }
+
+    @GetMapping("export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(required = false, name = "station") String station,
+            @RequestParam(required = false, name = "from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false, name = "to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false, defaultValue = "ndjson", name = "format") String format,
+            WebRequest request
+    ) {
+        if (log.isDebugEnabled()) {
+            log.debug(String.format(
+                    "REST: Measurement - export() - station=%s, from=%s, to=%s, format=%s",
+                    station, from, to, format
+            ));
+        }
+
+        ExportFormat exportFormat = toExportFormat(format);
+        DateRange range = toRange(from, to);
+        if (DatasetETags.measurementsNotModified(request, version)) {
+            return null;
+        }
+        String stationFilter = "".equals(station) ? null : station;
+
+        // a 503 now, rather than a broken 200 once streaming has started
+        MeasurementExport.Slot slot = export.reserve();
+        // the body may never run, if the executor rejects it or the request times out first,
+        // so the slot is also released once the request completes
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(slot, new CallableProcessingInterceptor() {
+            @Override
+            public <T> void afterCompletion(NativeWebRequest completed, Callable<T> task) {
+                slot.release();
+            }
+        });
+
+        // runs after the handler returns, on an async thread, writing rows as they are fetched
+        StreamingResponseBody body = outputStream -> {
+            try {
+                Writer out = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), EXPORT_BUFFER_SIZE);
+                exportFormat.writeHeader(out);
+                export.export(stationFilter, range, (s, date, minTemp, maxTemp, totalPrecip) ->
+                        exportFormat.writeRow(out, s, date, minTemp, maxTemp, totalPrecip));
+                out.flush();
+            } finally {
+                slot.release();
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"measurements." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
+    private static ExportFormat toExportFormat(String format) {
+        try {
+            return ExportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "format must be ndjson or csv");
+        }
+    }
+
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ExceptionHandler({MethodArgumentNotValidException.class})
     public Map<String, String> handleMethodArgumentNotValid(MethodArgumentNotValidException ex) {
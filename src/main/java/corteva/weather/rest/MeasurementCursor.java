@@ -0,0 +1,40 @@
+package corteva.weather.rest;
+
+import corteva.weather.core.*;
+import org.springframework.http.*;
+import org.springframework.web.server.*;
+
+import java.nio.charset.*;
+import java.time.*;
+import java.util.*;
+
+/**
+ * The `next` token for keyset paging of measurements.
+ * It's the (station, date) key of the last row returned, base64 encoded
+ * so clients treat it as opaque and just hand it back.
+ */
+final class MeasurementCursor {
+    private static final char SEPARATOR = '|';
+
+    private MeasurementCursor() {
+    }
+
+    static String encode(Measurement last) {
+        String key = last.getStation() + SEPARATOR + last.getDate();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the key to continue after, or null to start from the beginning
+     */
+    static MeasurementId decode(String token) {
+        if (token == null || token.isEmpty()) return null;
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int idx = key.lastIndexOf(SEPARATOR);
+            return new MeasurementId(key.substring(0, idx), LocalDate.parse(key.substring(idx + 1)));
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid cursor");
+        }
+    }
+}
@@ -1,21 +1,41 @@
 package corteva.weather.rest;
 
+import io.micrometer.core.instrument.*;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.*;
 import jakarta.servlet.annotation.*;
 import jakarta.servlet.http.*;
 import lombok.extern.slf4j.*;
+import org.springframework.beans.factory.annotation.*;
 import org.springframework.stereotype.*;
+import org.springframework.web.servlet.*;
 
 import java.io.*;
-import java.time.*;
+import java.util.concurrent.*;
 
 /**
- * A Filter that logs rest response data,
+ * A Filter that records rest response times,
+ * into `weather.api.requests` timers tagged by the matched endpoint
+ * pattern, method & status, with percentiles & a histogram, exposed
+ * via /actuator/metrics and /actuator/prometheus.
+ * Only `api.logging.sample-rate` of the requests are also logged, so
+ * most requests don't pay for formatting a log line.
  */
 @Component
 @WebFilter("/api/*")
 @Slf4j
 public class RestApiLogging implements Filter {
+    private record Endpoint(String uri, String method, int status) {
+    }
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<Endpoint, Timer> timers = new ConcurrentHashMap<>();
+    private final double sampleRate;
+
+    public RestApiLogging(MeterRegistry registry, @Value("${api.logging.sample-rate:0.01}") double sampleRate) {
+        this.registry = registry;
+        this.sampleRate = sampleRate;
+    }
 
     @Override
     public void init(FilterConfig filterConfig) throws ServletException {
@@ -23,23 +43,72 @@ public class RestApiLogging implements Filter {
 
     @Override
     public void doFilter(ServletRequest req, ServletResponse resp, FilterChain chain) throws IOException, ServletException {
-        Instant start = Instant.now();
+        long start = System.nanoTime();
         try {
             chain.doFilter(req, resp);
         } finally {
-            Instant finish = Instant.now();
-            long timeMs = Duration.between(start, finish).toMillis();
+            HttpServletRequest request = (HttpServletRequest) req;
+            HttpServletResponse response = (HttpServletResponse) resp;
+            if (request.isAsyncStarted()) {
+                // streamed responses, record once the body is written
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        record(request, response, start);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                record(request, response, start);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    private void record(HttpServletRequest request, HttpServletResponse response, long start) {
+        long nanos = System.nanoTime() - start;
+        Endpoint endpoint = new Endpoint(toUri(request), request.getMethod(), response.getStatus());
+        timers.computeIfAbsent(endpoint, this::newTimer).record(nanos, TimeUnit.NANOSECONDS);
+
+        if (sampleRate > 0 && log.isInfoEnabled() && ThreadLocalRandom.current().nextDouble() < sampleRate) {
             log.info(String.format(
                     "%d %s %s %,d ms",
-                    ((HttpServletResponse) resp).getStatus(),
-                    ((HttpServletRequest) req).getMethod(),
-                    ((HttpServletRequest) req).getRequestURI(),
-                    timeMs
+                    endpoint.status(),
+                    endpoint.method(),
+                    request.getRequestURI(),
+                    TimeUnit.NANOSECONDS.toMillis(nanos)
             ));
         }
     }
 
-    @Override
-    public void destroy() {
+    // the matched mapping, e.g. /api/weather/stats, so tags don't grow with query strings or ids
+    private static String toUri(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern == null ? "UNMATCHED" : pattern.toString();
+    }
+
+    private Timer newTimer(Endpoint endpoint) {
+        return Timer.builder("weather.api.requests")
+                .description("rest api response times")
+                .tag("uri", endpoint.uri())
+                .tag("method", endpoint.method())
+                .tag("status", Integer.toString(endpoint.status()))
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(registry);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,123 @@
+package corteva.weather.rest;
+
+import corteva.weather.core.*;
+import jakarta.validation.*;
+import jakarta.validation.constraints.*;
+import lombok.extern.slf4j.*;
+import org.springframework.data.domain.*;
+import org.springframework.http.*;
+import org.springframework.validation.annotation.*;
+import org.springframework.web.bind.*;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.*;
+
+import java.util.*;
+
+/**
+ * rest controller for the monthly, decadal & all-time rollups,
+ * paged like StatsController, in station then period order.
+ * They change along with the stats, so they share its ETag.
+ */
+@RestController
+@RequestMapping("api/weather/stats")
+@Validated
+@Slf4j
+public class RollupController {
+    private final RollupService service;
+    private final DatasetVersion version;
+
+    public RollupController(RollupService service, DatasetVersion version) {
+        this.service = service;
+        this.version = version;
+    }
+
+    @GetMapping("monthly")
+    public ResponseEntity<Map<String, Object>> findMonthly(
+            @RequestParam(required = false, defaultValue = "", name = "station") String station,
+            @RequestParam(required = false, defaultValue = "0", name = "page") @Min(0) @Max(Integer.MAX_VALUE) int pageNum,
+            @RequestParam(required = false, defaultValue = "12", name = "size") @Min(1) @Max(120) int pageSize,
+            @RequestParam(required = false, defaultValue = "true", name = "count") boolean count,
+            WebRequest request
+    ) {
+        return findAll(Rollup.Level.MONTH, station, pageNum, pageSize, count, request);
+    }
+
+    @GetMapping("decadal")
+    public ResponseEntity<Map<String, Object>> findDecadal(
+            @RequestParam(required = false, defaultValue = "", name = "station") String station,
+            @RequestParam(required = false, defaultValue = "0", name = "page") @Min(0) @Max(Integer.MAX_VALUE) int pageNum,
+            @RequestParam(required = false, defaultValue = "5", name = "size") @Min(1) @Max(100) int pageSize,
+            @RequestParam(required = false, defaultValue = "true", name = "count") boolean count,
+            WebRequest request
+    ) {
+        return findAll(Rollup.Level.DECADE, station, pageNum, pageSize, count, request);
+    }
+
+    @GetMapping("all-time")
+    public ResponseEntity<Map<String, Object>> findAllTime(
+            @RequestParam(required = false, defaultValue = "", name = "station") String station,
+            @RequestParam(required = false, defaultValue = "0", name = "page") @Min(0) @Max(Integer.MAX_VALUE) int pageNum,
+            @RequestParam(required = false, defaultValue = "5", name = "size") @Min(1) @Max(100) int pageSize,
+            @RequestParam(required = false, defaultValue = "true", name = "count") boolean count,
+            WebRequest request
+    ) {
+        return findAll(Rollup.Level.ALL, station, pageNum, pageSize, count, request);
+    }
+
+    // a page of the level, with totalItems & totalPages only when counted
+    private ResponseEntity<Map<String, Object>> findAll(Rollup.Level level, String station, int pageNum, int pageSize,
+                                                        boolean count, WebRequest request) {
+        if (log.isDebugEnabled()) {
+            log.debug(String.format(
+                    "REST: Rollup - findAll() - level=%s, station=%s, page=%d, size=%d",
+                    level, station, pageNum, pageSize
+            ));
+        }
+        if (DatasetETags.statsNotModified(request, version)) {
+            return null;
+        }
+
+        if ("".equals(station)) station = null;
+        Pageable paging = PageRequest.of(pageNum, pageSize);
+
+        Map<String, Object> response = new HashMap<>();
+        if (count) {
+            Page<Rollup> page = service.findAll(level, station, paging);
+            response.put("stats", page.getContent());
+            response.put("currentPage", page.getNumber());
+            response.put("totalItems", page.getTotalElements());
+            response.put("totalPages", page.getTotalPages());
+        } else {
+            Slice<Rollup> slice = service.findSlice(level, station, paging);
+            response.put("stats", slice.getContent());
+            response.put("currentPage", slice.getNumber());
+            response.put("hasNext", slice.hasNext());
+        }
+        response.put("pageSize", pageSize);
+        response.put("station", station);
+
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler({MethodArgumentNotValidException.class})
+    public Map<String, String> handleMethodArgumentNotValid(MethodArgumentNotValidException ex) {
+        Map<String, String> errors = new HashMap<>();
+
+        ex.getBindingResult()
+                .getFieldErrors()
+                .forEach(error -> errors.put(error.getField(), error.getDefaultMessage()));
+
+        return errors;
+    }
+
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler({ConstraintViolationException.class})
+    public Map<String, String> handleConstraintValidationException(ConstraintViolationException ex) {
+        Map<String, String> errors = new HashMap<>();
+
+        ex.getConstraintViolations().forEach(error -> errors.put(error.getPropertyPath().toString(), error.getMessage()));
+
+        return errors;
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.http.*;
 import org.springframework.validation.annotation.*;
 import org.springframework.web.bind.*;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.*;
 
 import java.time.*;
 import java.time.format.*;
@@ -18,6 +19,8 @@ import java.util.*;
  * rest controller for Measurements.
  * Validation and paging/filtering is handled
  * here as well.
+ * Responses carry an ETag of the stats generation, and
+ * unchanged data is answered with a 304 without being queried.
  */
 @RestController
 @RequestMapping("api/weather/stats")
@@ -28,9 +31,11 @@ public class StatsController {
     private static final DateTimeFormatter outputFormat = DateTimeFormatter.ofPattern("yyyy");
 
     private final StatsService service;
+    private final DatasetVersion version;
 
-    public StatsController(StatsService service) {
+    public StatsController(StatsService service, DatasetVersion version) {
         this.service = service;
+        this.version = version;
     }
 
     @GetMapping("")
@@ -38,12 +43,19 @@ public class StatsController {
             @RequestParam(required = false, defaultValue = "", name = "station") String station,
             @RequestParam(required = false, defaultValue = "0", name = "year") @Min(0) @Max(9999) int yearInt,
             @RequestParam(required = false, defaultValue = "0", name = "page") @Min(0) @Max(Integer.MAX_VALUE) int pageNum,
-            @RequestParam(required = false, defaultValue = "5", name = "size") @Min(1) @Min(1) @Max(100) int pageSize
+            @RequestParam(required = false, defaultValue = "5", name = "size") @Min(1) @Min(1) @Max(100) int pageSize,
+            @RequestParam(required = false, defaultValue = "true", name = "count") boolean count,
+            WebRequest request
     ) {
-        log.info(String.format(
-                "REST: Stats - findAll() - station=%s, year=%d, page=%d, size=%d",
-                station, yearInt, pageNum, pageSize
-        ));
+        if (log.isDebugEnabled()) {
+            log.debug(String.format(
+                    "REST: Stats - findAll() - station=%s, year=%d, page=%d, size=%d",
+                    station, yearInt, pageNum, pageSize
+            ));
+        }
+        if (DatasetETags.statsNotModified(request, version)) {
+            return null;
+        }
 
         LocalDate localYear = null;
         if (yearInt != 0) {
@@ -61,6 +73,10 @@ public class StatsController {
         Stats example = builder.build();
 
         Pageable paging = PageRequest.of(pageNum, pageSize);
+        if (!count) {
+            return findSlice(example, paging);
+        }
+
         Page<Stats> page = service.findAll(example, paging);
 
         List<Stats> statsList = page.getContent();
@@ -77,6 +93,21 @@ public class StatsController {
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
+    // a page without totalItems & totalPages, so no count query is needed
+    private ResponseEntity<Map<String, Object>> findSlice(Stats example, Pageable paging) {
+        Slice<Stats> slice = service.findSlice(example, paging);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("stats", slice.getContent());
+        response.put("currentPage", slice.getNumber());
+        response.put("hasNext", slice.hasNext());
+        response.put("pageSize", slice.getSize());
+        response.put("station", example.getStation());
+        response.put("year", example.getYear() == null ? null : outputFormat.format(example.getYear()));
+
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ExceptionHandler({MethodArgumentNotValidException.class})
     public Map<String, String> handleMethodArgumentNotValid(MethodArgumentNotValidException ex) {
@@ -0,0 +1,44 @@
+-- the schema as it was before migrations, created only where missing: existing databases are baselined at version 0, so this still runs
+
+CREATE TABLE IF NOT EXISTS measurements
+(
+    station      VARCHAR(255) NOT NULL,
+    date         DATE         NOT NULL,
+    max_temp     INT,
+    min_temp     INT,
+    total_precip INT,
+    PRIMARY KEY (station, date)
+);
+
+CREATE TABLE IF NOT EXISTS stats
+(
+    station      VARCHAR(255) NOT NULL,
+    year         DATE         NOT NULL,
+    avg_max_temp FLOAT,
+    avg_min_temp FLOAT,
+    avg_precip   FLOAT,
+    PRIMARY KEY (station, year)
+);
+
+CREATE TABLE IF NOT EXISTS import_manifest
+(
+    path         VARCHAR(768) NOT NULL,
+    size         BIGINT       NOT NULL,
+    modified     BIGINT       NOT NULL,
+    content_hash BIGINT       NOT NULL,
+    last_offset  BIGINT       NOT NULL,
+    PRIMARY KEY (path)
+);
+
+CREATE TABLE IF NOT EXISTS stats_totals
+(
+    station        VARCHAR(255) NOT NULL,
+    year           DATE         NOT NULL,
+    sum_max_temp   BIGINT       NOT NULL,
+    count_max_temp BIGINT       NOT NULL,
+    sum_min_temp   BIGINT       NOT NULL,
+    count_min_temp BIGINT       NOT NULL,
+    sum_precip     BIGINT       NOT NULL,
+    count_precip   BIGINT       NOT NULL,
+    PRIMARY KEY (station, year)
+);
@@ -0,0 +1,15 @@
+-- monthly, decadal & all-time sums & counts per station, see Rollup.
+-- level first, so a level's rows can be paged in (station, period) order from the primary key
+CREATE TABLE rollups
+(
+    level          VARCHAR(8)   NOT NULL,
+    station        VARCHAR(255) NOT NULL,
+    period         DATE         NOT NULL,
+    sum_max_temp   BIGINT       NOT NULL,
+    count_max_temp BIGINT       NOT NULL,
+    sum_min_temp   BIGINT       NOT NULL,
+    count_min_temp BIGINT       NOT NULL,
+    sum_precip     BIGINT       NOT NULL,
+    count_precip   BIGINT       NOT NULL,
+    PRIMARY KEY (level, station, period)
+);
@@ -0,0 +1,4 @@
+-- whether the changes the file's import made have been summarized, see Summarizer.
+-- rows from before this were summarized in full at startup
+ALTER TABLE import_manifest
+    ADD COLUMN summarized BOOLEAN NOT NULL DEFAULT TRUE;
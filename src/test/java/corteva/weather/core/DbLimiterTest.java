@@ -0,0 +1,98 @@
+package corteva.weather.core;
+
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Queries beyond the limit wait, then get shed, and a slot is always
+ * given back, whether the query returned or threw.
+ */
+@Timeout(10)
+class DbLimiterTest {
+    private final ExecutorService pool = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void runsTheQuery() {
+        DbLimiter limiter = new DbLimiter(1, 50);
+
+        assertEquals("rows", limiter.call(() -> "rows"));
+        assertEquals("more rows", limiter.call(() -> "more rows")); // the slot was given back
+    }
+
+    @Test
+    void shedsQueriesWhileEverySlotIsBusy() throws Exception {
+        DbLimiter limiter = new DbLimiter(1, 50);
+        CountDownLatch busy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> running = pool.submit(() -> limiter.call(() -> {
+            busy.countDown();
+            await(release);
+            return "slow rows";
+        }));
+        busy.await();
+
+        long start = System.nanoTime();
+        TooBusyException e = assertThrows(TooBusyException.class, () -> limiter.call(() -> "rows"));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50), "waited for a slot first");
+        assertEquals("no db slot free after 50 ms", e.getMessage());
+
+        release.countDown();
+        assertEquals("slow rows", running.get());
+        assertEquals("rows", limiter.call(() -> "rows"));
+    }
+
+    @Test
+    void waitsForASlotToFreeUp() throws Exception {
+        DbLimiter limiter = new DbLimiter(1, 5_000);
+        CountDownLatch busy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        pool.submit(() -> limiter.call(() -> {
+            busy.countDown();
+            await(release);
+            return null;
+        }));
+        busy.await();
+
+        Future<String> waiting = pool.submit(() -> limiter.call(() -> "rows"));
+        release.countDown();
+        assertEquals("rows", waiting.get());
+    }
+
+    @Test
+    void givesTheSlotBackWhenTheQueryFails() {
+        DbLimiter limiter = new DbLimiter(1, 50);
+
+        assertThrows(IllegalStateException.class, () -> limiter.call(() -> {
+            throw new IllegalStateException("db down");
+        }));
+        assertEquals("rows", limiter.call(() -> "rows"));
+    }
+
+    @Test
+    void shedsAnInterruptedCallerAndKeepsTheInterrupt() {
+        DbLimiter limiter = new DbLimiter(1, 5_000);
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(TooBusyException.class, () -> limiter.call(() -> "rows"));
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
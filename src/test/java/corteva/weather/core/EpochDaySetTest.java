@@ -0,0 +1,96 @@
+package corteva.weather.core;
+
+import org.junit.jupiter.api.*;
+
+import java.time.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The set only spans the days added so far, so lookups on either side
+ * of it and growth in both directions are where it can go wrong.
+ */
+class EpochDaySetTest {
+
+    @Test
+    void emptySetContainsNothing() {
+        EpochDaySet days = new EpochDaySet();
+
+        assertTrue(days.isEmpty());
+        assertFalse(days.contains(0));
+        assertFalse(days.contains(LocalDate.of(1985, 1, 1)));
+    }
+
+    @Test
+    void addsEachDayOnce() {
+        EpochDaySet days = new EpochDaySet();
+
+        assertTrue(days.add(LocalDate.of(1985, 1, 1).toEpochDay()));
+        assertFalse(days.add(LocalDate.of(1985, 1, 1).toEpochDay()));
+        assertTrue(days.add(LocalDate.of(1985, 1, 2).toEpochDay()));
+
+        assertEquals(2, days.size());
+        assertTrue(days.contains(LocalDate.of(1985, 1, 1)));
+        assertTrue(days.contains(LocalDate.of(1985, 1, 2)));
+        assertFalse(days.contains(LocalDate.of(1985, 1, 3)));
+    }
+
+    @Test
+    void tellsApartDaysOneWordApart() {
+        EpochDaySet days = new EpochDaySet();
+        days.add(128);
+
+        assertFalse(days.contains(64)); // same bit, previous word
+        assertFalse(days.contains(192)); // same bit, next word
+        assertFalse(days.contains(127));
+        assertFalse(days.contains(129));
+    }
+
+    @Test
+    void growsBeforeTheFirstDay() {
+        EpochDaySet days = new EpochDaySet();
+        long first = LocalDate.of(2000, 1, 1).toEpochDay();
+        days.add(first);
+
+        long earlier = LocalDate.of(1900, 1, 1).toEpochDay(); // far past the initial span, and before 1970
+        assertFalse(days.contains(earlier));
+        assertTrue(days.add(earlier));
+
+        assertTrue(days.contains(earlier));
+        assertTrue(days.contains(first));
+        assertFalse(days.contains(earlier + 1));
+        assertEquals(2, days.size());
+    }
+
+    @Test
+    void growsAfterTheLastDay() {
+        EpochDaySet days = new EpochDaySet();
+        long first = LocalDate.of(1900, 1, 1).toEpochDay();
+        days.add(first);
+
+        long later = LocalDate.of(2100, 12, 31).toEpochDay();
+        assertFalse(days.contains(later));
+        assertTrue(days.add(later));
+
+        assertTrue(days.contains(first));
+        assertTrue(days.contains(later));
+        assertFalse(days.contains(later - 1));
+        assertFalse(days.contains(later + 1));
+        assertEquals(2, days.size());
+    }
+
+    @Test
+    void keepsEveryDayThroughRepeatedGrowth() {
+        EpochDaySet days = new EpochDaySet();
+        long mid = LocalDate.of(1990, 1, 1).toEpochDay();
+        for (int i = 0; i < 20_000; i += 7) {
+            days.add(mid + i);
+            days.add(mid - i);
+        }
+
+        for (int i = -20_000; i < 20_000; i++) {
+            assertEquals(i % 7 == 0, days.contains(mid + i), "day " + i);
+        }
+        assertEquals(2 * 2858 - 1, days.size()); // mid was added twice
+    }
+}
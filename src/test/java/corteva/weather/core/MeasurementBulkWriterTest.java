@@ -0,0 +1,107 @@
+package corteva.weather.core;
+
+import org.junit.jupiter.api.*;
+import org.mockito.*;
+import org.springframework.jdbc.core.*;
+import org.springframework.test.util.*;
+
+import java.sql.*;
+import java.time.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * The statements the writer sends, and how it binds the rows:
+ * dates go in as MySQL day numbers for FROM_DAYS, which counts from year 0.
+ */
+class MeasurementBulkWriterTest {
+    private static final int NULL = MeasurementBatch.NULL_VALUE;
+
+    private JdbcTemplate jdbcTemplate;
+    private MeasurementBulkWriter writer;
+    private final List<String> statements = new ArrayList<>();
+    private final List<PreparedStatement> bound = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.update(anyString(), any(PreparedStatementSetter.class))).thenAnswer(call -> {
+            statements.add(call.getArgument(0));
+            PreparedStatement ps = mock(PreparedStatement.class);
+            call.<PreparedStatementSetter>getArgument(1).setValues(ps);
+            bound.add(ps);
+            return 2;
+        });
+        writer = new MeasurementBulkWriter(jdbcTemplate);
+        ReflectionTestUtils.setField(writer, "rowsPerInsert", 2);
+    }
+
+    @Test
+    void insertsPlainRows() {
+        writer.write(batch(1), MeasurementBulkWriter.Mode.INSERT);
+
+        assertEquals(List.of("INSERT INTO measurements (station, date, max_temp, min_temp, total_precip) VALUES (?,FROM_DAYS(?),?,?,?)"),
+                statements);
+    }
+
+    @Test
+    void ignoresExistingRows() {
+        writer.write(batch(1), MeasurementBulkWriter.Mode.IGNORE);
+
+        assertEquals(List.of("INSERT IGNORE INTO measurements (station, date, max_temp, min_temp, total_precip) VALUES (?,FROM_DAYS(?),?,?,?)"),
+                statements);
+    }
+
+    @Test
+    void upsertsExistingRows() {
+        writer.write(batch(1), MeasurementBulkWriter.Mode.UPSERT);
+
+        assertEquals(List.of("INSERT INTO measurements (station, date, max_temp, min_temp, total_precip) VALUES (?,FROM_DAYS(?),?,?,?)" +
+                        " ON DUPLICATE KEY UPDATE max_temp = VALUES(max_temp), min_temp = VALUES(min_temp), total_precip = VALUES(total_precip)"),
+                statements);
+    }
+
+    @Test
+    void splitsTheBatchIntoStatementsOfRowsPerInsert() {
+        int affected = writer.write(batch(5), MeasurementBulkWriter.Mode.IGNORE);
+
+        assertEquals(3, statements.size());
+        assertEquals(statements.get(0), statements.get(1));
+        assertTrue(statements.get(0).endsWith("VALUES (?,FROM_DAYS(?),?,?,?),(?,FROM_DAYS(?),?,?,?)"));
+        assertTrue(statements.get(2).endsWith("VALUES (?,FROM_DAYS(?),?,?,?)"));
+        assertEquals(6, affected); // what each statement reported, summed
+    }
+
+    @Test
+    void bindsDatesAsDaysSinceYearZero() throws SQLException {
+        MeasurementBatch batch = new MeasurementBatch("USC00110072");
+        batch.add(LocalDate.of(1970, 1, 1).toEpochDay(), 317, -22, 94);
+        batch.add(LocalDate.of(1985, 1, 1).toEpochDay(), NULL, 1, NULL);
+
+        writer.write(batch, MeasurementBulkWriter.Mode.INSERT);
+
+        PreparedStatement ps = bound.get(0);
+        InOrder order = inOrder(ps);
+        order.verify(ps).setString(1, "USC00110072");
+        order.verify(ps).setLong(2, 719_528L); // TO_DAYS('1970-01-01')
+        order.verify(ps).setInt(3, 317);
+        order.verify(ps).setInt(4, -22);
+        order.verify(ps).setInt(5, 94);
+        order.verify(ps).setString(6, "USC00110072");
+        order.verify(ps).setLong(7, 725_007L); // TO_DAYS('1985-01-01')
+        order.verify(ps).setNull(8, Types.INTEGER);
+        order.verify(ps).setInt(9, 1);
+        order.verify(ps).setNull(10, Types.INTEGER);
+    }
+
+    // rows on consecutive days from 2000-01-01
+    private static MeasurementBatch batch(int rows) {
+        MeasurementBatch batch = new MeasurementBatch("USC00110072");
+        for (int i = 0; i < rows; i++) {
+            batch.add(LocalDate.of(2000, 1, 1).toEpochDay() + i, 10, 0, 0);
+        }
+        return batch;
+    }
+}
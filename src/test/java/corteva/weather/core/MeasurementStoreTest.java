@@ -0,0 +1,208 @@
+package corteva.weather.core;
+
+import org.junit.jupiter.api.*;
+import org.springframework.data.domain.*;
+import org.springframework.jdbc.datasource.*;
+
+import java.time.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The store has to answer exactly like the db does: MeasurementBuckets'
+ * sql for buckets (MySQL rounds decimals half away from zero, and
+ * aggregates skip nulls) and MeasurementSpecs for ranges & keyset paging.
+ */
+class MeasurementStoreTest {
+    private static final int NULL = StationSeries.NULL_INT;
+
+    private MeasurementStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new MeasurementStore(new DriverManagerDataSource(), new DatasetVersion(), new Shards(new String[0], 10000), true);
+
+        SortedMap<String, StationSeries> byStation = new TreeMap<>();
+        add(byStation, "A",
+                row("2022-12-31", 30, 20, 10),
+                row("2023-01-01", 31, 21, NULL),
+                row("2023-01-02", 10, 2, 5),
+                row("2023-01-03", 11, 3, 120),
+                row("2023-01-09", NULL, NULL, NULL),
+                row("2023-02-01", -20, -2, 0),
+                row("2023-02-02", -21, -3, 0));
+        add(byStation, "B",
+                row("2023-01-02", 50, 40, 1),
+                row("2023-01-03", 51, 41, 2));
+        add(byStation, "C",
+                row("2023-01-01", 1, 1, 1));
+        store.publish(0, byStation);
+    }
+
+    @Test
+    void isCurrentForThePublishedGeneration() {
+        assertTrue(store.isCurrent());
+    }
+
+    @Test
+    void pagesInStationThenDateOrderAcrossStations() {
+        Slice<Measurement> first = store.findSlice(new Measurement(), DateRange.ALL, PageRequest.of(0, 3));
+        assertEquals(keys("A 2022-12-31", "A 2023-01-01", "A 2023-01-02"), keys(first));
+        assertTrue(first.hasNext());
+
+        Slice<Measurement> third = store.findSlice(new Measurement(), DateRange.ALL, PageRequest.of(2, 3));
+        assertEquals(keys("A 2023-02-02", "B 2023-01-02", "B 2023-01-03"), keys(third));
+        assertTrue(third.hasNext());
+
+        Slice<Measurement> last = store.findSlice(new Measurement(), DateRange.ALL, PageRequest.of(3, 3));
+        assertEquals(keys("C 2023-01-01"), keys(last));
+        assertFalse(last.hasNext());
+    }
+
+    @Test
+    void rangesIncludeBothEnds() {
+        Slice<Measurement> slice = store.findSlice(new Measurement(), new DateRange(null, LocalDate.parse("2023-01-01")), PageRequest.of(0, 10));
+        assertEquals(keys("A 2022-12-31", "A 2023-01-01", "C 2023-01-01"), keys(slice));
+
+        Slice<Measurement> station = store.findSlice(new Measurement("B", null), new DateRange(LocalDate.parse("2023-01-03"), null), PageRequest.of(0, 10));
+        assertEquals(keys("B 2023-01-03"), keys(station));
+    }
+
+    @Test
+    void keepsNulls() {
+        Measurement row = store.findSlice(new Measurement("A", LocalDate.parse("2023-01-09")), DateRange.ALL, PageRequest.of(0, 1))
+                .getContent().get(0);
+        assertEquals(new Measurement("A", LocalDate.parse("2023-01-09"), null, null, null), row);
+
+        Measurement partial = store.findSlice(new Measurement("A", LocalDate.parse("2023-01-01")), DateRange.ALL, PageRequest.of(0, 1))
+                .getContent().get(0);
+        assertEquals(new Measurement("A", LocalDate.parse("2023-01-01"), 21, 31, null), partial);
+    }
+
+    @Test
+    void cursorStartsAtTheBeginning() {
+        Slice<Measurement> slice = store.findAfter(new Measurement(), DateRange.ALL, null, 2);
+        assertEquals(keys("A 2022-12-31", "A 2023-01-01"), keys(slice));
+        assertTrue(slice.hasNext());
+    }
+
+    @Test
+    void cursorAfterAStationsLastDateMovesToTheNextStation() {
+        Slice<Measurement> slice = store.findAfter(new Measurement(), DateRange.ALL, id("A", "2023-02-02"), 2);
+        assertEquals(keys("B 2023-01-02", "B 2023-01-03"), keys(slice));
+        assertTrue(slice.hasNext());
+    }
+
+    @Test
+    void cursorBetweenDatesAndStations() {
+        assertEquals(keys("A 2023-01-09"), keys(store.findAfter(new Measurement(), DateRange.ALL, id("A", "2023-01-05"), 1)));
+        assertEquals(keys("B 2023-01-02"), keys(store.findAfter(new Measurement(), DateRange.ALL, id("AA", "2023-01-01"), 1)));
+    }
+
+    @Test
+    void cursorAfterTheLastRowIsEmpty() {
+        Slice<Measurement> slice = store.findAfter(new Measurement(), DateRange.ALL, id("C", "2023-01-01"), 5);
+        assertTrue(slice.getContent().isEmpty());
+        assertFalse(slice.hasNext());
+    }
+
+    @Test
+    void cursorWithinARange() {
+        Slice<Measurement> slice = store.findAfter(new Measurement(), new DateRange(null, LocalDate.parse("2023-01-03")), id("A", "2023-01-02"), 10);
+        assertEquals(keys("A 2023-01-03", "B 2023-01-02", "B 2023-01-03", "C 2023-01-01"), keys(slice));
+        assertFalse(slice.hasNext());
+    }
+
+    @Test
+    void counts() {
+        assertEquals(10, store.count(new Measurement(), DateRange.ALL));
+        assertEquals(7, store.count(new Measurement("A", null), DateRange.ALL));
+        assertEquals(2, store.count(new Measurement(null, LocalDate.parse("2023-01-02")), DateRange.ALL));
+        assertEquals(4, store.count(new Measurement(), new DateRange(LocalDate.parse("2023-01-02"), LocalDate.parse("2023-01-03"))));
+        assertEquals(0, store.count(new Measurement("Z", null), DateRange.ALL));
+    }
+
+    @Test
+    void weeksStartOnMondayAndRoundHalfAwayFromZero() {
+        Slice<MeasurementBucket> slice = store.findBuckets(new Measurement("A", null), DateRange.ALL, Resolution.WEEK, PageRequest.of(0, 10));
+        assertEquals(List.of(
+                // avg min 20.5 & avg max 30.5 tenths are ties, which round up
+                new MeasurementBucket("A", LocalDate.parse("2022-12-26"), 2, 2.0f, 3.1f, 2.1f, 3.1f, 0.1f),
+                new MeasurementBucket("A", LocalDate.parse("2023-01-02"), 2, 0.2f, 1.1f, 0.3f, 1.1f, 1.25f),
+                // all nulls, but the row still counts as a day
+                new MeasurementBucket("A", LocalDate.parse("2023-01-09"), 1, null, null, null, null, null),
+                // negative ties round away from zero
+                new MeasurementBucket("A", LocalDate.parse("2023-01-30"), 2, -0.3f, -2.0f, -0.3f, -2.1f, 0.0f)
+        ), slice.getContent());
+        assertFalse(slice.hasNext());
+    }
+
+    @Test
+    void bucketsOnlyHoldRowsWithinTheRange() {
+        Slice<MeasurementBucket> slice = store.findBuckets(new Measurement("A", null), new DateRange(LocalDate.parse("2023-01-01"), LocalDate.parse("2023-01-02")),
+                Resolution.WEEK, PageRequest.of(0, 10));
+        assertEquals(List.of(
+                new MeasurementBucket("A", LocalDate.parse("2022-12-26"), 1, 2.1f, 3.1f, 2.1f, 3.1f, null),
+                new MeasurementBucket("A", LocalDate.parse("2023-01-02"), 1, 0.2f, 1.0f, 0.2f, 1.0f, 0.05f)
+        ), slice.getContent());
+    }
+
+    @Test
+    void monthBucketsPageAcrossStations() {
+        Slice<MeasurementBucket> first = store.findBuckets(new Measurement(), DateRange.ALL, Resolution.MONTH, PageRequest.of(0, 2));
+        assertEquals(List.of(
+                new MeasurementBucket("A", LocalDate.parse("2022-12-01"), 1, 2.0f, 3.0f, 2.0f, 3.0f, 0.1f),
+                // avg min 26 / 3 = 8.67 tenths
+                new MeasurementBucket("A", LocalDate.parse("2023-01-01"), 4, 0.2f, 3.1f, 0.9f, 1.7f, 1.25f)
+        ), first.getContent());
+        assertTrue(first.hasNext());
+
+        Slice<MeasurementBucket> second = store.findBuckets(new Measurement(), DateRange.ALL, Resolution.MONTH, PageRequest.of(1, 2));
+        assertEquals(List.of("A 2023-02-01", "B 2023-01-01"), second.getContent().stream().map(b -> b.station() + " " + b.start()).toList());
+        assertTrue(second.hasNext());
+
+        Slice<MeasurementBucket> last = store.findBuckets(new Measurement(), DateRange.ALL, Resolution.MONTH, PageRequest.of(2, 2));
+        assertEquals(List.of("C 2023-01-01"), last.getContent().stream().map(b -> b.station() + " " + b.start()).toList());
+        assertFalse(last.hasNext());
+    }
+
+    @Test
+    void bucketStartsMatchTheSql() {
+        // WEEKDAY is 0 for monday, DAYOFMONTH starts at 1
+        for (LocalDate day = LocalDate.parse("1899-12-25"); day.isBefore(LocalDate.parse("2101-01-08")); day = day.plusDays(1)) {
+            long epochDay = day.toEpochDay();
+            LocalDate week = day.minusDays(day.getDayOfWeek().getValue() - 1);
+            LocalDate month = day.withDayOfMonth(1);
+            assertEquals(week.toEpochDay(), Resolution.WEEK.startOf(epochDay), day::toString);
+            assertEquals(month.toEpochDay(), Resolution.MONTH.startOf(epochDay), day::toString);
+            assertEquals(epochDay, Resolution.DAY.startOf(epochDay));
+            assertEquals(week.plusWeeks(1).toEpochDay(), Resolution.WEEK.nextStart(week.toEpochDay()), day::toString);
+            assertEquals(month.plusMonths(1).toEpochDay(), Resolution.MONTH.nextStart(month.toEpochDay()), day::toString);
+        }
+    }
+
+    private static long[] row(String date, int maxTemp, int minTemp, int totalPrecip) {
+        return new long[]{LocalDate.parse(date).toEpochDay(), maxTemp, minTemp, totalPrecip};
+    }
+
+    private static void add(SortedMap<String, StationSeries> byStation, String station, long[]... rows) {
+        StationSeries.Builder builder = new StationSeries.Builder(station);
+        for (long[] row : rows) {
+            builder.add(row[0], (int) row[1], (int) row[2], (int) row[3]);
+        }
+        byStation.put(station, builder.build());
+    }
+
+    private static MeasurementId id(String station, String date) {
+        return new MeasurementId(station, LocalDate.parse(date));
+    }
+
+    private static List<String> keys(String... keys) {
+        return List.of(keys);
+    }
+
+    private static List<String> keys(Slice<Measurement> slice) {
+        return slice.getContent().stream().map(m -> m.getStation() + " " + m.getDate()).toList();
+    }
+}
@@ -0,0 +1,167 @@
+package corteva.weather.core;
+
+import org.junit.jupiter.api.*;
+import org.springframework.data.domain.*;
+import org.springframework.jdbc.core.*;
+import org.springframework.jdbc.datasource.*;
+
+import java.util.*;
+import java.util.stream.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Routing, scatter/gather and merging against two in-memory H2
+ * databases standing in for the shards, each holding the rows of the
+ * stations that hash to it, like ShardingConfig sets them up.
+ */
+class ShardsTest {
+    private static final String[] URLS = {"jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1", "jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1"};
+    private static final List<String> STATIONS = List.of("A", "B", "C", "D", "E", "F", "G", "H");
+    private static final Sort KEY_ORDER = Sort.by("station", "period");
+    private static final Comparator<String> BY_KEY = Comparator.naturalOrder();
+
+    private Shards shards;
+    private JdbcTemplate jdbcTemplate; // through the routing DataSource
+
+    @BeforeEach
+    void setUp() {
+        shards = new Shards(URLS, 10);
+
+        Map<Object, Object> targets = new HashMap<>();
+        for (int shard = 0; shard < URLS.length; shard++) {
+            DriverManagerDataSource target = new DriverManagerDataSource(URLS[shard]);
+            JdbcTemplate direct = new JdbcTemplate(target);
+            direct.execute("DROP TABLE IF EXISTS rows_by_station");
+            direct.execute("CREATE TABLE rows_by_station (station VARCHAR(8) NOT NULL, period INT NOT NULL, shard INT NOT NULL)");
+            targets.put(shard, target);
+        }
+        ShardingConfig.ShardRoutingDataSource routing = new ShardingConfig.ShardRoutingDataSource();
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(targets.get(0));
+        routing.setLenientFallback(false);
+        routing.afterPropertiesSet();
+        jdbcTemplate = new JdbcTemplate(routing);
+
+        for (String station : STATIONS) {
+            for (int period = 2000; period < 2002; period++) {
+                int p = period;
+                shards.runForStation(station, () -> jdbcTemplate.update("INSERT INTO rows_by_station VALUES (?, ?, ?)",
+                        station, p, shards.shardOf(station)));
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        shards.stop();
+    }
+
+    @Test
+    void stationsAreSpreadOverEveryShard() {
+        Set<Integer> used = STATIONS.stream().map(shards::shardOf).collect(Collectors.toSet());
+        assertEquals(Set.of(0, 1), used);
+        assertEquals(0, shards.shardOf(null));
+        assertEquals(2, shards.count());
+        assertTrue(shards.isSharded());
+    }
+
+    @Test
+    void aStationsRowsAreOnlyOnItsShard() {
+        for (String station : STATIONS) {
+            int shard = shards.shardOf(station);
+            assertEquals(2, shards.on(shard, () -> count(station)), station);
+            assertEquals(0, shards.on(1 - shard, () -> count(station)), station);
+            assertEquals(List.of(shard), shards.forStation(station, () ->
+                    jdbcTemplate.queryForList("SELECT DISTINCT shard FROM rows_by_station WHERE station = ?", Integer.class, station)));
+        }
+    }
+
+    @Test
+    void nestedCallsGoBackToTheOuterShard() {
+        shards.run(1, () -> {
+            assertEquals(0, shards.on(0, Shards::current));
+            assertEquals(1, Shards.current());
+        });
+        assertEquals(0, Shards.current());
+    }
+
+    @Test
+    void onEachGathersInShardOrder() {
+        List<List<Integer>> perShard = shards.onEach(() ->
+                jdbcTemplate.queryForList("SELECT DISTINCT shard FROM rows_by_station", Integer.class));
+        assertEquals(List.of(List.of(0), List.of(1)), perShard);
+
+        long total = shards.onEach(() -> jdbcTemplate.queryForObject("SELECT COUNT(*) FROM rows_by_station", Long.class))
+                .stream().mapToLong(Long::longValue).sum();
+        assertEquals(STATIONS.size() * 2, total);
+    }
+
+    @Test
+    void onEachRethrowsAShardsFailureAsIs() {
+        IllegalArgumentException failure = new IllegalArgumentException("shard 1 failed");
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> shards.onEach(() -> {
+            if (Shards.current() == 1) throw failure;
+            return Shards.current();
+        }));
+        assertSame(failure, thrown);
+    }
+
+    @Test
+    void firstRowsCoverTheWholePageFromTheStart() {
+        assertEquals(PageRequest.of(0, 9, KEY_ORDER), shards.firstRows(PageRequest.of(2, 3), KEY_ORDER));
+        assertEquals(PageRequest.of(0, 10, KEY_ORDER), shards.firstRows(PageRequest.of(1, 5), KEY_ORDER));
+        assertThrows(PageTooDeepException.class, () -> shards.firstRows(PageRequest.of(3, 3), KEY_ORDER));
+        assertThrows(PageTooDeepException.class, () -> shards.firstRows(PageRequest.of(Integer.MAX_VALUE, 100), KEY_ORDER));
+    }
+
+    @Test
+    void mergedPagesMatchOneOrderedQuery() {
+        List<String> expected = STATIONS.stream().flatMap(s -> Stream.of(s + " 2000", s + " 2001")).toList();
+        for (int page = 0; page * 3 < expected.size(); page++) {
+            Pageable paging = PageRequest.of(page, 3);
+            if (paging.getOffset() + paging.getPageSize() > 10) break;
+
+            Pageable firstRows = shards.firstRows(paging, KEY_ORDER);
+            Slice<String> merged = Shards.merge(shards.onEach(() -> findSlice(firstRows)), BY_KEY, paging);
+
+            int from = (int) paging.getOffset();
+            assertEquals(expected.subList(from, Math.min(expected.size(), from + 3)), merged.getContent(), "page " + page);
+            assertEquals(from + 3 < expected.size(), merged.hasNext(), "page " + page);
+        }
+    }
+
+    @Test
+    void mergeSetsHasNextFromTheShards() {
+        Pageable paging = PageRequest.of(0, 2);
+        Slice<String> exact = Shards.merge(List.of(
+                new SliceImpl<>(List.of("A"), paging, false),
+                new SliceImpl<>(List.of("B"), paging, false)), BY_KEY, paging);
+        assertEquals(List.of("A", "B"), exact.getContent());
+        assertFalse(exact.hasNext());
+
+        Slice<String> moreOnAShard = Shards.merge(List.of(
+                new SliceImpl<>(List.of("A"), paging, true),
+                new SliceImpl<>(List.of("B"), paging, false)), BY_KEY, paging);
+        assertTrue(moreOnAShard.hasNext());
+
+        Slice<String> moreMerged = Shards.merge(List.of(
+                new SliceImpl<>(List.of("C", "A"), paging, false),
+                new SliceImpl<>(List.of("B"), paging, false)), BY_KEY, paging);
+        assertEquals(List.of("A", "B"), moreMerged.getContent());
+        assertTrue(moreMerged.hasNext());
+    }
+
+    private long count(String station) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM rows_by_station WHERE station = ?", Long.class, station);
+    }
+
+    // the shard's rows of the page, in key order, with one more to tell if there is a next page
+    private Slice<String> findSlice(Pageable paging) {
+        List<String> rows = jdbcTemplate.queryForList(
+                "SELECT CONCAT(station, ' ', period) FROM rows_by_station ORDER BY station, period LIMIT ? OFFSET ?",
+                String.class, paging.getPageSize() + 1, paging.getOffset());
+        boolean hasNext = rows.size() > paging.getPageSize();
+        return new SliceImpl<>(hasNext ? rows.subList(0, paging.getPageSize()) : rows, paging, hasNext);
+    }
+}
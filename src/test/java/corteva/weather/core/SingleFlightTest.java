@@ -0,0 +1,106 @@
+package corteva.weather.core;
+
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Callers that arrive while a call is in flight share it, result or
+ * exception; once it's done, the next caller runs its own.
+ */
+@Timeout(10)
+class SingleFlightTest {
+    private final SingleFlight<String> flights = new SingleFlight<>();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ExecutorService pool = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void sharesTheLeadersResult() throws Exception {
+        Future<String> leader = pool.submit(() -> flights.run("q", () -> blockingCall("result")));
+        started.await();
+        Future<String> follower = followWhileInFlight("q", "own result");
+
+        release.countDown();
+        assertEquals("result", leader.get());
+        assertEquals("result", follower.get());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void sharesTheLeadersException() throws Exception {
+        IllegalStateException failure = new IllegalStateException("db down");
+        Future<String> leader = pool.submit(() -> flights.run("q", () -> {
+            blockingCall(null);
+            throw failure;
+        }));
+        started.await();
+        Future<String> follower = followWhileInFlight("q", "own result");
+
+        release.countDown();
+        assertSame(failure, assertThrows(ExecutionException.class, leader::get).getCause());
+        assertSame(failure, assertThrows(ExecutionException.class, follower::get).getCause());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void doesNotShareBetweenDifferentKeys() throws Exception {
+        Future<String> leader = pool.submit(() -> flights.run("q", () -> blockingCall("result")));
+        started.await();
+
+        assertEquals("other", flights.run("other q", () -> "other"));
+        release.countDown();
+        assertEquals("result", leader.get());
+    }
+
+    @Test
+    void runsAgainOnceTheCallIsDone() {
+        assertEquals(1, flights.run("q", calls::incrementAndGet));
+        assertEquals(2, flights.run("q", calls::incrementAndGet));
+    }
+
+    @Test
+    void runsAgainAfterAFailure() {
+        assertThrows(IllegalStateException.class, () -> flights.run("q", () -> {
+            throw new IllegalStateException();
+        }));
+        assertEquals("retried", flights.run("q", () -> "retried"));
+    }
+
+    // counts the call, then waits to be released
+    private <V> V blockingCall(V value) {
+        calls.incrementAndGet();
+        started.countDown();
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+        return value;
+    }
+
+    // a second caller for the key, once it's waiting on the call in flight
+    private Future<String> followWhileInFlight(String key, String ownResult) throws InterruptedException {
+        AtomicReference<Thread> thread = new AtomicReference<>();
+        Future<String> follower = pool.submit(() -> {
+            thread.set(Thread.currentThread());
+            return flights.run(key, () -> {
+                calls.incrementAndGet();
+                return ownResult;
+            });
+        });
+        while (thread.get() == null || thread.get().getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+        return follower;
+    }
+}
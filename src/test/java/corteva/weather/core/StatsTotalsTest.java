@@ -0,0 +1,74 @@
+package corteva.weather.core;
+
+import org.junit.jupiter.api.*;
+
+import java.time.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stats written from the totals in Java (streaming summarization) have to
+ * match the ones StatsRepository.summarizeAll writes with native sql:
+ * ROUND(CAST(sum AS DOUBLE) / count / 10.0, places). MySQL rounds doubles
+ * with rint, so halves go to the even neighbour, e.g. ROUND(25E-1) is 2,
+ * where a decimal would round half away from zero.
+ */
+class StatsTotalsTest {
+    private static final LocalDate YEAR = LocalDate.of(1985, 1, 1);
+
+    @Test
+    void keepsTheKey() {
+        Stats stats = totals(10, 1, 10, 1, 10, 1).toStats();
+
+        assertEquals("USC00110072", stats.getStation());
+        assertEquals(YEAR, stats.getYear());
+    }
+
+    @Test
+    void averagesTempsInTenthsOfADegree() {
+        Stats stats = totals(317 + 290, 2, -22 - 11, 2, 0, 0).toStats();
+
+        assertEquals(30.4f, stats.getAvgMaxTemp()); // ROUND(CAST(607 AS DOUBLE) / 2 / 10.0, 1)
+        assertEquals(-1.6f, stats.getAvgMinTemp()); // ROUND(CAST(-33 AS DOUBLE) / 2 / 10.0, 1)
+    }
+
+    @Test
+    void averagesPrecipInCentimetres() {
+        Stats stats = totals(0, 0, 0, 0, 94 + 17 + 0, 3).toStats();
+
+        assertEquals(0.37f, stats.getAvgPrecip()); // ROUND(CAST(111 AS DOUBLE) / 3 / 10.0 / 10.0, 2)
+    }
+
+    @Test
+    void roundsHalvesToEvenLikeMysqlDoesForDoubles() {
+        assertEquals(0.2f, totals(5, 2, 0, 0, 0, 0).toStats().getAvgMaxTemp()); // ROUND(0.25E0, 1), not 0.3
+        assertEquals(0.8f, totals(15, 2, 0, 0, 0, 0).toStats().getAvgMaxTemp()); // ROUND(0.75E0, 1)
+        assertEquals(-0.2f, totals(-5, 2, 0, 0, 0, 0).toStats().getAvgMaxTemp()); // ROUND(-0.25E0, 1)
+        assertEquals(0.12f, totals(0, 0, 0, 0, 25, 2).toStats().getAvgPrecip()); // ROUND(0.125E0, 2)
+    }
+
+    @Test
+    void leavesAveragesOfNothingNull() {
+        Stats stats = totals(0, 0, 0, 0, 0, 0).toStats();
+
+        assertNull(stats.getAvgMaxTemp());
+        assertNull(stats.getAvgMinTemp());
+        assertNull(stats.getAvgPrecip());
+    }
+
+    @Test
+    void addsSumsAndCounts() {
+        StatsTotals totals = totals(10, 1, 20, 1, 30, 1);
+        totals.add(30, 1, 0, 0, 10, 1);
+
+        Stats stats = totals.toStats();
+        assertEquals(2.0f, stats.getAvgMaxTemp());
+        assertEquals(2.0f, stats.getAvgMinTemp());
+        assertEquals(0.2f, stats.getAvgPrecip());
+    }
+
+    private static StatsTotals totals(long sumMaxTemp, long countMaxTemp, long sumMinTemp, long countMinTemp,
+                                      long sumPrecip, long countPrecip) {
+        return new StatsTotals("USC00110072", YEAR, sumMaxTemp, countMaxTemp, sumMinTemp, countMinTemp, sumPrecip, countPrecip);
+    }
+}
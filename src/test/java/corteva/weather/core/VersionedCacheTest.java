@@ -0,0 +1,101 @@
+package corteva.weather.core;
+
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.atomic.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A cached value must never outlive the generation it was loaded for,
+ * and the bounds must hold by entries and by weight.
+ */
+class VersionedCacheTest {
+    private final AtomicLong generation = new AtomicLong(1);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void loadsOncePerGeneration() {
+        VersionedCache<String, String> cache = new VersionedCache<>(10);
+
+        assertEquals("a1", cache.get("a", generation::get, () -> load("a")));
+        assertEquals("a1", cache.get("a", generation::get, () -> load("a")));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void dropsEverythingWhenTheGenerationAdvances() {
+        VersionedCache<String, String> cache = new VersionedCache<>(10);
+        cache.get("a", generation::get, () -> load("a"));
+        cache.get("b", generation::get, () -> load("b"));
+
+        generation.incrementAndGet();
+        assertEquals("a3", cache.get("a", generation::get, () -> load("a")));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void neverServesAnOlderGenerationToANewerCaller() {
+        VersionedCache<String, String> cache = new VersionedCache<>(10);
+        cache.get("a", () -> 2, () -> "new");
+
+        assertEquals("old", cache.get("a", () -> 1, () -> "old")); // a straggler still reading generation 1
+        assertEquals("new", cache.get("a", () -> 2, () -> "newer"));
+    }
+
+    @Test
+    void doesNotKeepWhatWasLoadedWhileTheGenerationChanged() {
+        VersionedCache<String, String> cache = new VersionedCache<>(10);
+
+        String value = cache.get("a", generation::get, () -> {
+            generation.incrementAndGet(); // an import finished during the query
+            return load("a");
+        });
+
+        assertEquals("a1", value);
+        assertEquals(0, cache.size());
+        assertEquals("a2", cache.get("a", generation::get, () -> load("a")));
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntry() {
+        VersionedCache<String, String> cache = new VersionedCache<>(2);
+        cache.get("a", generation::get, () -> load("a"));
+        cache.get("b", generation::get, () -> load("b"));
+        cache.get("a", generation::get, () -> load("a")); // a is now the most recent
+
+        cache.get("c", generation::get, () -> load("c"));
+
+        assertEquals(2, cache.size());
+        assertEquals("a1", cache.get("a", generation::get, () -> load("a")));
+        assertEquals("b4", cache.get("b", generation::get, () -> load("b")));
+    }
+
+    @Test
+    void staysWithinTheWeight() {
+        VersionedCache<String, String> cache = new VersionedCache<>(10, 5, String::length);
+        cache.get("a", generation::get, () -> "xx");
+        cache.get("b", generation::get, () -> "yyy");
+        assertEquals(5, cache.weight());
+
+        cache.get("c", generation::get, () -> "z");
+
+        assertEquals(4, cache.weight());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void returnsButDoesNotCacheValuesHeavierThanTheLimit() {
+        VersionedCache<String, String> cache = new VersionedCache<>(10, 5, String::length);
+        cache.get("a", generation::get, () -> "xx");
+
+        assertEquals("too heavy", cache.get("b", generation::get, () -> "too heavy"));
+        assertEquals(1, cache.size());
+        assertEquals(2, cache.weight());
+    }
+
+    // the key tagged with how many loads there have been
+    private String load(String key) {
+        return key + loads.incrementAndGet();
+    }
+}
@@ -0,0 +1,158 @@
+package corteva.weather.etl;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The byte level decoding has to agree with the LocalDate & Integer
+ * parsing it replaced, for every date and the odd inputs files contain.
+ */
+class StationFileParserTest {
+    private static final int INVALID = Integer.MIN_VALUE;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void epochDayMatchesLocalDateForEveryDay() {
+        for (LocalDate day = LocalDate.of(0, 1, 1); day.getYear() <= 9999; day = day.plusDays(1)) {
+            assertEquals(day.toEpochDay(), StationFileParser.epochDay(day.getYear(), day.getMonthValue(), day.getDayOfMonth()), day::toString);
+        }
+    }
+
+    @Test
+    void parsesValidDates() {
+        assertEquals(LocalDate.of(1985, 1, 1).toEpochDay(), parseDate("19850101"));
+        assertEquals(LocalDate.of(2014, 12, 31).toEpochDay(), parseDate("20141231"));
+        assertEquals(LocalDate.of(1970, 1, 1).toEpochDay(), parseDate(" 19700101 "));
+        assertEquals(LocalDate.of(2000, 2, 29).toEpochDay(), parseDate("20000229"));
+        assertEquals(LocalDate.of(2004, 2, 29).toEpochDay(), parseDate("20040229"));
+    }
+
+    @Test
+    void rejectsInvalidDates() {
+        for (String date : List.of("19000229", "20010229", "20011301", "20010001", "20010100", "20010431",
+                "2001011", "200101011", "2001-1-1", "2001o101", "", "        ")) {
+            assertEquals(Long.MIN_VALUE, parseDate(date), date);
+        }
+    }
+
+    @Test
+    void parsesInts() {
+        assertEquals(0, parseInt("0"));
+        assertEquals(123, parseInt("123"));
+        assertEquals(-9999, parseInt("-9999"));
+        assertEquals(45, parseInt("+45"));
+        assertEquals(-7, parseInt("  -7 "));
+        assertEquals(999_999_999, parseInt("999999999"));
+    }
+
+    @Test
+    void rejectsInvalidInts() {
+        for (String value : List.of("", " ", "-", "+", "1-2", "12a", "1.5", "--1", "1000000000")) {
+            assertEquals(INVALID, parseInt(value), value);
+        }
+    }
+
+    @Test
+    void parsesLinesAndReportsRejects() throws Exception {
+        Path file = write("19850101\t-22\t-128\t-9999\r\n" +
+                "\n" +
+                "19850102\t1\t2\n" +
+                "19850132\t1\t2\t3\n" +
+                "19850103\tx\t2\t3\n" +
+                "19850104\t 10 \t 20 \t 30 \n");
+
+        Recorder recorder = new Recorder();
+        StationFileParser parser = new StationFileParser();
+        long consumed = parser.parse(file, 0, recorder);
+
+        assertEquals(Files.size(file), consumed);
+        assertEquals(6, parser.getLines());
+        assertEquals(List.of(
+                LocalDate.of(1985, 1, 1).toEpochDay() + " -22 -128 -9999",
+                LocalDate.of(1985, 1, 4).toEpochDay() + " 10 20 30"
+        ), recorder.records);
+        assertEquals(List.of("EMPTY 2", "FIELD_COUNT 3", "DATE 4", "NUMBER 5"), recorder.rejects);
+    }
+
+    @Test
+    void leavesAnUnterminatedLastLineUntilTheFileIsFinished() throws Exception {
+        String complete = "19850101\t1\t2\t3\n";
+        Path file = write(complete + "19850102\t4\t5\t4");
+
+        Recorder unfinished = new Recorder();
+        assertEquals(complete.length(), new StationFileParser().parse(file, 0, unfinished));
+        assertEquals(1, unfinished.records.size());
+
+        Recorder finished = new Recorder();
+        assertEquals(Files.size(file), new StationFileParser().parse(file, 0, true, finished));
+        assertEquals(LocalDate.of(1985, 1, 2).toEpochDay() + " 4 5 4", finished.records.get(1));
+    }
+
+    @Test
+    void resumesFromAnOffset() throws Exception {
+        String first = "19850101\t1\t2\t3\n";
+        Path file = write(first + "19850102\t4\t5\t6\n");
+
+        Recorder recorder = new Recorder();
+        assertEquals(Files.size(file), new StationFileParser().parse(file, first.length(), recorder));
+        assertEquals(List.of(LocalDate.of(1985, 1, 2).toEpochDay() + " 4 5 6"), recorder.records);
+    }
+
+    @Test
+    void linesSpanningBufferRefillsAndOverlongLines() throws Exception {
+        StringBuilder content = new StringBuilder();
+        for (int day = 1; day <= 28; day++) {
+            content.append(String.format("198502%02d\t%d\t%d\t%d\n", day, day, -day, day * 10));
+        }
+        content.append("19850301\t").append("1".repeat(64)).append("\t2\t3\n");
+        content.append("19850302\t1\t2\t3\n");
+        Path file = write(content.toString());
+
+        Recorder recorder = new Recorder();
+        StationFileParser parser = new StationFileParser(32); // a few lines per read, and smaller than the long line
+        parser.parse(file, 0, recorder);
+
+        assertEquals(29, recorder.records.size());
+        assertEquals(LocalDate.of(1985, 2, 28).toEpochDay() + " 28 -28 280", recorder.records.get(27));
+        assertEquals(LocalDate.of(1985, 3, 2).toEpochDay() + " 1 2 3", recorder.records.get(28));
+        assertEquals(List.of("TOO_LONG 29"), recorder.rejects);
+    }
+
+    private Path write(String content) throws Exception {
+        return Files.writeString(dir.resolve("USC00000001.txt"), content, StandardCharsets.US_ASCII);
+    }
+
+    private static long parseDate(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+        return StationFileParser.parseDate(bytes, 0, bytes.length);
+    }
+
+    private static int parseInt(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+        return StationFileParser.parseInt(bytes, 0, bytes.length);
+    }
+
+    private static class Recorder implements StationFileParser.Handler {
+        private final List<String> records = new ArrayList<>();
+        private final List<String> rejects = new ArrayList<>();
+
+        @Override
+        public void record(long epochDay, int maxTemp, int minTemp, int totalPrecip) {
+            records.add(epochDay + " " + maxTemp + " " + minTemp + " " + totalPrecip);
+        }
+
+        @Override
+        public void reject(StationFileParser.Reject reason, long lineNumber) {
+            rejects.add(reason + " " + lineNumber);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package corteva.weather.rest;
+
+import corteva.weather.core.*;
+import org.junit.jupiter.api.*;
+import org.springframework.http.*;
+import org.springframework.mock.web.*;
+import org.springframework.web.context.request.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The ETag names the generation and the representation Accept picks,
+ * so a client never gets a 304 for a copy in another format or from an
+ * older import, and every response says it varies by Accept.
+ */
+class DatasetETagsTest {
+    private final DatasetVersion version = new DatasetVersion();
+
+    @Test
+    void tagsJsonByDefault() {
+        assertTrue(etag(null).endsWith("-json\""));
+        assertTrue(etag("").endsWith("-json\""));
+        assertTrue(etag("*/*").endsWith("-json\""));
+        assertTrue(etag("application/*").endsWith("-json\""));
+    }
+
+    @Test
+    void tagsTheRequestedRepresentation() {
+        assertTrue(etag("application/cbor").endsWith("-cbor\""));
+        assertTrue(etag("application/x-jackson-smile").endsWith("-x-jackson-smile\""));
+    }
+
+    @Test
+    void tagsTheMostPreferredRepresentation() {
+        assertTrue(etag("application/json;q=0.5, application/cbor").endsWith("-cbor\""));
+        assertTrue(etag("application/cbor;q=0.5, application/json").endsWith("-json\""));
+        assertTrue(etag("*/*;q=0.1, application/x-jackson-smile").endsWith("-x-jackson-smile\""));
+    }
+
+    @Test
+    void skipsRepresentationsTheClientRefuses() {
+        assertTrue(etag("application/json;q=0, application/cbor;q=0.5").endsWith("-cbor\""));
+    }
+
+    @Test
+    void fallsBackToJsonForAnythingElse() {
+        assertTrue(etag("text/csv").endsWith("-json\""));
+        assertTrue(etag("not a media type").endsWith("-json\""));
+    }
+
+    @Test
+    void variesByAccept() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        DatasetETags.measurementsNotModified(request(new MockHttpServletRequest(), response), version);
+
+        assertEquals(HttpHeaders.ACCEPT, response.getHeader(HttpHeaders.VARY));
+    }
+
+    @Test
+    void notModifiedOnlyForTheSameRepresentationAndGeneration() {
+        String cbor = etag("application/cbor");
+
+        assertTrue(notModified("application/cbor", cbor));
+        assertFalse(notModified("application/json", cbor));
+
+        version.advanceMeasurements();
+        assertFalse(notModified("application/cbor", cbor));
+    }
+
+    @Test
+    void tagsMeasurementsAndStatsApart() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        DatasetETags.statsNotModified(request(new MockHttpServletRequest(), response), version);
+
+        assertNotEquals(etag(null), response.getHeader(HttpHeaders.ETAG));
+    }
+
+    // the measurements ETag sent for the Accept header
+    private String etag(String accept) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/weather");
+        if (accept != null) request.addHeader(HttpHeaders.ACCEPT, accept);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertFalse(DatasetETags.measurementsNotModified(request(request, response), version));
+        return response.getHeader(HttpHeaders.ETAG);
+    }
+
+    private boolean notModified(String accept, String etag) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/weather");
+        request.addHeader(HttpHeaders.ACCEPT, accept);
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        return DatasetETags.measurementsNotModified(request(request, new MockHttpServletResponse()), version);
+    }
+
+    private static WebRequest request(MockHttpServletRequest request, MockHttpServletResponse response) {
+        return new ServletWebRequest(request, response);
+    }
+}
@@ -0,0 +1,71 @@
+package corteva.weather.rest;
+
+import corteva.weather.core.*;
+import org.junit.jupiter.api.*;
+import org.springframework.http.*;
+import org.springframework.web.server.*;
+
+import java.nio.charset.*;
+import java.time.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cursors have to round trip any key, and anything a client makes up
+ * has to be a 400 rather than a 500.
+ */
+class MeasurementCursorTest {
+
+    @Test
+    void decodesTheKeyItEncoded() {
+        String token = MeasurementCursor.encode(new Measurement("USC00110072", LocalDate.of(1985, 1, 1)));
+
+        assertEquals(new MeasurementId("USC00110072", LocalDate.of(1985, 1, 1)), MeasurementCursor.decode(token));
+    }
+
+    @Test
+    void encodesUrlSafelyWithoutPadding() {
+        String token = MeasurementCursor.encode(new Measurement("??>>", LocalDate.of(1985, 1, 1)));
+
+        assertTrue(token.matches("[A-Za-z0-9_-]+"), token);
+    }
+
+    @Test
+    void keepsSeparatorsInTheStation() {
+        String token = MeasurementCursor.encode(new Measurement("A|B", LocalDate.of(1985, 1, 1)));
+
+        assertEquals(new MeasurementId("A|B", LocalDate.of(1985, 1, 1)), MeasurementCursor.decode(token));
+    }
+
+    @Test
+    void startsFromTheBeginningWithoutAToken() {
+        assertNull(MeasurementCursor.decode(null));
+        assertNull(MeasurementCursor.decode(""));
+    }
+
+    @Test
+    void rejectsTokensThatAreNotBase64() {
+        assertInvalid("not base64!");
+    }
+
+    @Test
+    void rejectsKeysWithoutASeparator() {
+        assertInvalid(encode("USC00110072"));
+    }
+
+    @Test
+    void rejectsKeysWithoutADate() {
+        assertInvalid(encode("USC00110072|yesterday"));
+        assertInvalid(encode("USC00110072|"));
+    }
+
+    private static void assertInvalid(String token) {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> MeasurementCursor.decode(token));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+    }
+
+    private static String encode(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+}